@@ -0,0 +1,60 @@
+package com.example.demo.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.logging.Logger;
+
+/**
+ * One-shot move of holdings and snapshots from the legacy double columns to
+ * fixed-point micro-unit columns. {@code ddl-auto=update} adds the new
+ * columns with a default of 0 but cannot carry values over or drop columns
+ * that are no longer mapped. Existing values are copied as
+ * {@code round(old * 1e6)}, with a null price mapped to 0, and the legacy
+ * column is then dropped. A database without the legacy columns is left
+ * alone, so this is a no-op after the first start.
+ */
+@Component
+public class FixedPointColumnMigration {
+    private static final Logger logger = Logger.getLogger(FixedPointColumnMigration.class.getName());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Taking the EntityManagerFactory makes this run after Hibernate has added the new columns
+    public FixedPointColumnMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        transactionTemplate.executeWithoutResult(status -> {
+            backfill("portfolio_assets", "quantity", "quantity_micros");
+            backfill("portfolio_assets", "current_price", "current_price_micros");
+            backfill("portfolio_snapshots", "total_value", "total_value_micros");
+        });
+    }
+
+    private void backfill(String table, String legacyColumn, String microsColumn) {
+        if (!columnExists(table, legacyColumn)) {
+            return;
+        }
+        int rows = jdbcTemplate.update("UPDATE " + table + " SET " + microsColumn + " = COALESCE(CAST(ROUND("
+                + legacyColumn + " * 1000000) AS BIGINT), 0)");
+        jdbcTemplate.execute("ALTER TABLE " + table + " DROP COLUMN " + legacyColumn);
+        logger.info("Moved " + rows + " rows of " + table + "." + legacyColumn + " to " + microsColumn);
+    }
+
+    private boolean columnExists(String table, String column) {
+        // Case-insensitive: H2 reports identifiers in upper case, PostgreSQL in lower case
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.columns "
+                + "WHERE LOWER(table_schema) = LOWER(CURRENT_SCHEMA) AND LOWER(table_name) = ? "
+                + "AND LOWER(column_name) = ?", Integer.class, table, column);
+        return count != null && count > 0;
+    }
+}
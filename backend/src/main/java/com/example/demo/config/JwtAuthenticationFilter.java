@@ -8,6 +8,7 @@ import lombok.RequiredArgsConstructor;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,9 +16,11 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.example.demo.services.TokenRevocationList;
 import com.example.demo.util.JwtUtil;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -29,23 +32,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 	@Autowired
     private  UserDetailsService userDetailsService;
 
+	@Autowired
+    private  TokenRevocationList revocationList;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-            String username = jwtUtil.extractUsername(token);
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtUtil.isTokenValid(token, username)) {
+            // Verified once here; controllers read the principal instead of the header
+            jwtUtil.verify(authHeader.substring(7)).ifPresent(token -> {
+                if (SecurityContextHolder.getContext().getAuthentication() == null
+                        && !revocationList.isRevoked(token.tokenId())) {
+                    UserDetails userDetails = principal(token);
+                    // The verified token stays available as credentials, e.g. for logout
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
+                            userDetails, token, userDetails.getAuthorities());
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
-            }
+            });
         }
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails principal(JwtUtil.VerifiedToken token) {
+        if (token.userId() == null) {
+            // Tokens issued before the id was embedded: cached lookup by username
+            return userDetailsService.loadUserByUsername(token.username());
+        }
+        List<SimpleGrantedAuthority> authorities = token.roles().stream().map(SimpleGrantedAuthority::new).toList();
+        return new AuthenticatedUser(token.userId(), token.username(), "", authorities);
+    }
 }
\ No newline at end of file
@@ -1,14 +1,21 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.AuthenticatedUser;
 import com.example.demo.dto.AuthResponse;
+import com.example.demo.dto.AuthTokens;
 import com.example.demo.dto.LoginRequest;
+import com.example.demo.dto.RefreshRequest;
 import com.example.demo.dto.RegisterRequest;
 import com.example.demo.services.AuthService;
+import com.example.demo.services.RefreshTokenService;
+import com.example.demo.util.JwtUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -19,28 +26,57 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class AuthController {
     private final AuthService authService;
+    private final RefreshTokenService refreshTokenService;
 
     @PostMapping("/register")
-    public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
-        String token = authService.register(request.getUsername(), request.getPassword(), request.getEmail());
-        AuthResponse response = new AuthResponse(token, "User registered successfully", request.getUsername());
+    public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request,
+            HttpServletRequest httpRequest) {
+        AuthTokens tokens = authService.register(request.getUsername(), request.getPassword(), request.getEmail(),
+                httpRequest.getRemoteAddr());
+        AuthResponse response = new AuthResponse(tokens.accessToken(), tokens.refreshToken(), tokens.expiresIn(),
+                "User registered successfully", request.getUsername());
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
-        String token = authService.login(request.getUsername(), request.getPassword());
-        AuthResponse response = new AuthResponse(token, "Login successful", request.getUsername());
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request,
+            HttpServletRequest httpRequest) {
+        // Remote address as seen by Tomcat; honour proxies via server.forward-headers-strategy
+        AuthTokens tokens = authService.login(request.getUsername(), request.getPassword(), httpRequest.getRemoteAddr());
+        AuthResponse response = new AuthResponse(tokens.accessToken(), tokens.refreshToken(), tokens.expiresIn(),
+                "Login successful", request.getUsername());
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshRequest request) {
+        AuthTokens tokens = refreshTokenService.refresh(request.getRefreshToken());
+        return ResponseEntity.ok(new AuthResponse(tokens.accessToken(), tokens.refreshToken(), tokens.expiresIn(),
+                "Token refreshed", null));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody(required = false) RefreshRequest request,
+            Authentication authentication) {
+        // The JWT filter leaves the verified access token as the credentials
+        JwtUtil.VerifiedToken accessToken = authentication != null
+                && authentication.getCredentials() instanceof JwtUtil.VerifiedToken token ? token : null;
+        refreshTokenService.logout(accessToken, request != null ? request.getRefreshToken() : null);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/verify")
-    public ResponseEntity<Map<String, Object>> verifyToken(HttpServletRequest request) {
-        // This endpoint is used by the frontend to verify if the token is still valid
-        // The JWT filter will handle the actual validation
+    public ResponseEntity<Map<String, Object>> verifyToken(@AuthenticationPrincipal AuthenticatedUser user) {
+        // Used by the frontend to check its token. The path is open, and the JWT filter simply leaves
+        // expired, forged and revoked tokens unauthenticated, so the principal is the verdict
         Map<String, Object> response = new HashMap<>();
+        if (user == null) {
+            response.put("valid", false);
+            response.put("message", "Token is invalid or expired");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
         response.put("valid", true);
         response.put("message", "Token is valid");
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+}
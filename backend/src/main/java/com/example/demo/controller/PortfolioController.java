@@ -2,67 +2,167 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.AddAssetRequest;
 import com.example.demo.dto.CreatePortfolioRequest;
+import com.example.demo.dto.ImportResultResponse;
+import com.example.demo.dto.LedgerTransactionRequest;
+import com.example.demo.dto.PortfolioPageResponse;
 import com.example.demo.dto.PortfolioResponse;
+import com.example.demo.dto.PositionResponse;
+import com.example.demo.dto.PriceResolution;
+import com.example.demo.dto.ValueHistoryResponse;
+import com.example.demo.config.AuthenticatedUser;
+import com.example.demo.services.HoldingsImportParser.Format;
+import com.example.demo.services.HoldingsImportService;
 import com.example.demo.services.PortfolioService;
-import com.example.demo.util.JwtUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/portfolios")
 @RequiredArgsConstructor
 public class PortfolioController {
+    private static final long HISTORY_DEFAULT_MILLIS = 30L * 24 * 60 * 60 * 1000;
+    // Browsers may keep a copy but must revalidate it with If-None-Match on every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final PortfolioService portfolioService;
-    private final JwtUtil jwtUtil;
+    private final HoldingsImportService importService;
 
     @PostMapping
     public ResponseEntity<PortfolioResponse> createPortfolio(
             @Valid @RequestBody CreatePortfolioRequest request,
-            HttpServletRequest httpRequest) {
-        String username = jwtUtil.extractUsername(httpRequest.getHeader("Authorization").substring(7));
-        PortfolioResponse portfolio = portfolioService.createPortfolio(username, request.getName());
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        PortfolioResponse portfolio = portfolioService.createPortfolio(user.getId(), request.getName(),
+                request.getCostBasisMethod());
         return ResponseEntity.status(HttpStatus.CREATED).body(portfolio);
     }
 
     @GetMapping
-    public ResponseEntity<List<PortfolioResponse>> getUserPortfolios(HttpServletRequest httpRequest) {
-        String username = jwtUtil.extractUsername(httpRequest.getHeader("Authorization").substring(7));
-        List<PortfolioResponse> portfolios = portfolioService.getUserPortfolios(username);
-        return ResponseEntity.ok(portfolios);
+    public ResponseEntity<List<PortfolioResponse>> getUserPortfolios(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            WebRequest webRequest) {
+        // Checked before the response is built: an unchanged list costs one query and no price lookups
+        String etag = portfolioService.getUserPortfoliosETag(user.getId());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        List<PortfolioResponse> portfolios = portfolioService.getUserPortfolios(user.getId());
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).varyBy(HttpHeaders.AUTHORIZATION)
+                .body(portfolios);
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<PortfolioPageResponse> getPortfolioSummaries(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int limit,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        return ResponseEntity.ok(portfolioService.getPortfolioSummaries(user.getId(), after, limit));
     }
 
     @PostMapping("/{portfolioId}/assets")
     public ResponseEntity<String> addAsset(
             @PathVariable Long portfolioId,
             @Valid @RequestBody AddAssetRequest request,
-            HttpServletRequest httpRequest) {
-        String username = jwtUtil.extractUsername(httpRequest.getHeader("Authorization").substring(7));
-        portfolioService.addAsset(portfolioId, request.getTicker(), request.getQuantity(), username);
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        portfolioService.addAsset(portfolioId, request.getTicker(), request.getQuantity(), user.getId());
         return ResponseEntity.ok("Asset added successfully");
     }
 
+    @PostMapping(path = "/{portfolioId}/assets/import", consumes = { "text/csv", MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<ImportResultResponse> importAssets(
+            @PathVariable Long portfolioId,
+            HttpServletRequest httpRequest,
+            @AuthenticationPrincipal AuthenticatedUser user) throws IOException {
+        Format format = Format.fromContentType(httpRequest.getContentType(), null);
+        return ResponseEntity.ok(importService.importHoldings(portfolioId, user.getId(),
+                httpRequest.getInputStream(), format));
+    }
+
+    @PostMapping(path = "/{portfolioId}/assets/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportResultResponse> importAssetsFile(
+            @PathVariable Long portfolioId,
+            @RequestParam("file") MultipartFile file,
+            @AuthenticationPrincipal AuthenticatedUser user) throws IOException {
+        Format format = Format.fromContentType(file.getContentType(), file.getOriginalFilename());
+        try (InputStream body = file.getInputStream()) {
+            return ResponseEntity.ok(importService.importHoldings(portfolioId, user.getId(), body, format));
+        }
+    }
+
     @DeleteMapping("/{portfolioId}/assets/{ticker}")
     public ResponseEntity<String> removeAsset(
             @PathVariable Long portfolioId,
             @PathVariable String ticker,
-            HttpServletRequest httpRequest) {
-        String username = jwtUtil.extractUsername(httpRequest.getHeader("Authorization").substring(7));
-        portfolioService.removeAsset(portfolioId, ticker, username);
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        portfolioService.removeAsset(portfolioId, ticker, user.getId());
         return ResponseEntity.ok("Asset removed successfully");
     }
 
+    @PostMapping("/{portfolioId}/transactions")
+    public ResponseEntity<PositionResponse> recordTransaction(
+            @PathVariable Long portfolioId,
+            @Valid @RequestBody LedgerTransactionRequest request,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        PositionResponse position = portfolioService.recordTransaction(portfolioId, user.getId(), request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(position);
+    }
+
+    @GetMapping("/{portfolioId}/positions")
+    public ResponseEntity<List<PositionResponse>> getPositions(
+            @PathVariable Long portfolioId,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        return ResponseEntity.ok(portfolioService.getPositions(portfolioId, user.getId()));
+    }
+
     @GetMapping("/{portfolioId}")
     public ResponseEntity<PortfolioResponse> getPortfolio(
             @PathVariable Long portfolioId,
-            HttpServletRequest httpRequest) {
-        String username = jwtUtil.extractUsername(httpRequest.getHeader("Authorization").substring(7));
-        PortfolioResponse portfolio = portfolioService.getPortfolioDetails(portfolioId, username);
-        return ResponseEntity.ok(portfolio);
+            @AuthenticationPrincipal AuthenticatedUser user,
+            WebRequest webRequest) {
+        String etag = portfolioService.getPortfolioETag(portfolioId, user.getId());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        PortfolioResponse portfolio = portfolioService.getPortfolioDetails(portfolioId, user.getId());
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).varyBy(HttpHeaders.AUTHORIZATION)
+                .body(portfolio);
+    }
+
+    @GetMapping("/{portfolioId}/history")
+    public ResponseEntity<ValueHistoryResponse> getPortfolioHistory(
+            @PathVariable Long portfolioId,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(required = false) PriceResolution resolution,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - HISTORY_DEFAULT_MILLIS;
+        return ResponseEntity.ok(portfolioService.getPortfolioHistory(portfolioId, user.getId(), start, end, resolution));
+    }
+
+    @GetMapping("/{portfolioId}/snapshots")
+    public ResponseEntity<ValueHistoryResponse> getPortfolioSnapshots(
+            @PathVariable Long portfolioId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusYears(1);
+        return ResponseEntity.ok(portfolioService.getPortfolioSnapshots(portfolioId, user.getId(), start, end));
     }
 }
@@ -1,38 +1,48 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.PriceHistoryResponse;
+import com.example.demo.dto.PriceResolution;
+import com.example.demo.services.PriceHistoryStore;
 import com.example.demo.services.StockService;
-import com.example.demo.util.JwtUtil;
-import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/stocks")
 @RequiredArgsConstructor
 public class StockController {
+    private static final long HISTORY_DEFAULT_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
     private final StockService stockService;
-    private final JwtUtil jwtUtil;
+    private final PriceHistoryStore priceHistory;
 
     @GetMapping("/{ticker}/price")
-    public ResponseEntity<Map<String, Object>> getStockPrice(
-            @PathVariable String ticker,
-            HttpServletRequest httpRequest) {
-        // Validate JWT token (username extraction validates the token)
-        jwtUtil.extractUsername(httpRequest.getHeader("Authorization").substring(7));
-        Map<String, Object> stockInfo = stockService.getStockInfo(ticker);
-        return ResponseEntity.ok(stockInfo);
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getStockPrice(@PathVariable String ticker) {
+        // Served asynchronously so a slow upstream does not hold the Tomcat worker
+        return stockService.getStockPriceAsync(ticker).thenApply(ResponseEntity::ok);
     }
 
     @GetMapping("/{ticker}/info")
-    public ResponseEntity<Map<String, Object>> getStockInfo(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getStockInfo(@PathVariable String ticker) {
+        // Served asynchronously so a slow upstream does not hold the Tomcat worker
+        return stockService.getStockInfoAsync(ticker).thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping("/{ticker}/history")
+    public ResponseEntity<PriceHistoryResponse> getStockHistory(
             @PathVariable String ticker,
-            HttpServletRequest httpRequest) {
-        // Validate JWT token (username extraction validates the token)
-        jwtUtil.extractUsername(httpRequest.getHeader("Authorization").substring(7));
-        Map<String, Object> stockInfo = stockService.getStockInfo(ticker);
-        return ResponseEntity.ok(stockInfo);
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(required = false) PriceResolution resolution) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - HISTORY_DEFAULT_MILLIS;
+        if (start >= end) {
+            throw new RuntimeException("History range must have from before to");
+        }
+        return ResponseEntity.ok(priceHistory.query(ticker.trim().toUpperCase(), start, end, resolution));
     }
 }
@@ -1,6 +1,8 @@
 package com.example.demo.dto;
 
 import com.example.demo.entity.PortfolioAsset;
+import com.example.demo.util.FixedPoint;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -9,19 +11,52 @@ import java.time.LocalDateTime;
 public class AssetResponse {
     private Long id;
     private String ticker;
-    private Double quantity;
+    private double quantity;
+    // Null when no price has been recorded for the holding yet
     private Double currentPrice;
-    private Double totalValue;
+    private double totalValue;
+    private String priceStatus;
     private LocalDateTime addedAt;
 
+    // Exact value for aggregation; totalValue is its rendering
+    @JsonIgnore
+    private long totalValueMicros;
+
     public static AssetResponse fromEntity(PortfolioAsset asset) {
+        return fromEntity(asset, null);
+    }
+
+    /**
+     * Builds the response using a freshly looked-up quote. When the quote has
+     * no price the last stored price is kept and the status says why.
+     */
+    public static AssetResponse fromEntity(PortfolioAsset asset, Quote quote) {
+        return of(asset.getId(), asset.getTicker(), asset.getQuantityMicros(), asset.getCurrentPriceMicros(),
+                asset.getAddedAt(), quote);
+    }
+
+    public static AssetResponse fromRow(AssetRow row, Quote quote) {
+        return of(row.id(), row.ticker(), row.quantityMicros(), row.currentPriceMicros(), row.addedAt(), quote);
+    }
+
+    private static AssetResponse of(Long id, String ticker, long quantityMicros, long priceMicros,
+            LocalDateTime addedAt, Quote quote) {
+        if (quote != null && quote.hasPrice()) {
+            priceMicros = FixedPoint.toMicros(quote.price());
+        }
+        long valueMicros = FixedPoint.multiply(quantityMicros, priceMicros);
+
         AssetResponse response = new AssetResponse();
-        response.setId(asset.getId());
-        response.setTicker(asset.getTicker());
-        response.setQuantity(asset.getQuantity());
-        response.setCurrentPrice(asset.getCurrentPrice());
-        response.setTotalValue(asset.getTotalValue());
-        response.setAddedAt(asset.getAddedAt());
+        response.setId(id);
+        response.setTicker(ticker);
+        response.setQuantity(FixedPoint.toDouble(quantityMicros));
+        response.setCurrentPrice(priceMicros != 0 ? FixedPoint.toDouble(priceMicros) : null);
+        response.setTotalValueMicros(valueMicros);
+        response.setTotalValue(FixedPoint.toDouble(valueMicros));
+        response.setAddedAt(addedAt);
+        if (quote != null) {
+            response.setPriceStatus(quote.status().name());
+        }
         return response;
     }
 }
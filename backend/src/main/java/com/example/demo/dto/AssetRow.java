@@ -0,0 +1,8 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+/** Asset columns read straight into a projection, tagged with the owning portfolio; amounts in micro-units. */
+public record AssetRow(Long portfolioId, Long id, String ticker, long quantityMicros, long currentPriceMicros,
+        LocalDateTime addedAt) {
+}
@@ -7,6 +7,9 @@ import lombok.Data;
 @AllArgsConstructor
 public class AuthResponse {
     private String token;
+    private String refreshToken;
+    // Access token lifetime in seconds
+    private long expiresIn;
     private String message;
     private String username;
 }
@@ -0,0 +1,5 @@
+package com.example.demo.dto;
+
+/** Access token, the refresh token that replaces it, and the access token lifetime in seconds. */
+public record AuthTokens(String accessToken, String refreshToken, long expiresIn) {
+}
@@ -0,0 +1,7 @@
+package com.example.demo.dto;
+
+/**
+ * Slow-changing company metadata returned by a quote provider's overview call.
+ */
+public record CompanyOverview(String name, String sector, String industry) {
+}
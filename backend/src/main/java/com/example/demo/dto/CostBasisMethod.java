@@ -0,0 +1,11 @@
+package com.example.demo.dto;
+
+/** How sells are matched against open tax lots. */
+public enum CostBasisMethod {
+    /** Oldest lots first. */
+    FIFO,
+    /** Newest lots first. */
+    LIFO,
+    /** All lots pooled at their weighted average cost. */
+    AVERAGE
+}
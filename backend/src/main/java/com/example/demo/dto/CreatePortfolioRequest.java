@@ -9,4 +9,7 @@ public class CreatePortfolioRequest {
     @NotBlank(message = "Portfolio name is required")
     @Size(min = 1, max = 100, message = "Portfolio name must be between 1 and 100 characters")
     private String name;
+
+    // Lot matching for sells; FIFO when omitted
+    private CostBasisMethod costBasisMethod;
 }
@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+/**
+ * One holding as streamed by the revaluation job. Portfolios without assets
+ * appear once with a null ticker so they still get a (zero) snapshot.
+ * Amounts are micro-units.
+ */
+public record HoldingRow(Long portfolioId, String ticker, long quantityMicros, long currentPriceMicros) {
+}
@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ImportResultResponse {
+    private Integer rowsRead;
+    private Integer rowsRejected;
+    private Integer holdingsOpened;
+    private Integer holdingsUpdated;
+    private List<String> errors;
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+
+@Data
+public class LedgerTransactionRequest {
+    @NotNull(message = "Transaction type is required")
+    private TransactionType type;
+
+    @NotBlank(message = "Ticker symbol is required")
+    private String ticker;
+
+    // Shares for BUY and SELL, new shares per old share for SPLIT; unused for DIVIDEND
+    @Positive(message = "Quantity must be positive")
+    private Double quantity;
+
+    // Per share; BUY and SELL default to the current price, DIVIDEND requires it
+    @PositiveOrZero(message = "Price must not be negative")
+    private Double price;
+}
@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/** One page of a keyset-paginated listing; pass {@code nextCursor} as {@code after} to continue. */
+@Data
+@AllArgsConstructor
+public class PortfolioPageResponse {
+    private List<PortfolioSummaryResponse> items;
+    private Long nextCursor;
+}
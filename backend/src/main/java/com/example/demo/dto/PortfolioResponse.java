@@ -2,11 +2,13 @@ package com.example.demo.dto;
 
 import com.example.demo.entity.Portfolio;
 import com.example.demo.entity.PortfolioAsset;
+import com.example.demo.util.FixedPoint;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Data
 public class PortfolioResponse {
@@ -15,24 +17,54 @@ public class PortfolioResponse {
     private Long userId;
     private LocalDateTime createdAt;
     private List<AssetResponse> assets;
-    private Double totalValue;
+    private double totalValue;
 
     public static PortfolioResponse fromEntity(Portfolio portfolio) {
+        return fromEntity(portfolio, Map.of());
+    }
+
+    /**
+     * Builds the response pricing each asset from {@code quotes}, keyed by
+     * upper-case ticker. Assets without a quote keep their stored price.
+     */
+    public static PortfolioResponse fromEntity(Portfolio portfolio, Map<String, Quote> quotes) {
         PortfolioResponse response = new PortfolioResponse();
         response.setId(portfolio.getId());
         response.setName(portfolio.getName());
         response.setUserId(portfolio.getUser().getId());
         response.setCreatedAt(portfolio.getCreatedAt());
 
-        List<AssetResponse> assetResponses = portfolio.getAssets().stream()
-                .map(AssetResponse::fromEntity)
-                .collect(Collectors.toList());
+        List<AssetResponse> assets = new ArrayList<>(portfolio.getAssets().size());
+        for (PortfolioAsset asset : portfolio.getAssets()) {
+            assets.add(AssetResponse.fromEntity(asset, quotes.get(asset.getTicker().toUpperCase())));
+        }
+        return withAssets(response, assets);
+    }
+
+    /** Builds the response from projected rows; {@code assets} must all belong to {@code portfolio}. */
+    public static PortfolioResponse fromRows(PortfolioRow portfolio, List<AssetRow> assets, Map<String, Quote> quotes) {
+        PortfolioResponse response = new PortfolioResponse();
+        response.setId(portfolio.id());
+        response.setName(portfolio.name());
+        response.setUserId(portfolio.userId());
+        response.setCreatedAt(portfolio.createdAt());
+
+        List<AssetResponse> assetResponses = new ArrayList<>(assets.size());
+        for (AssetRow asset : assets) {
+            assetResponses.add(AssetResponse.fromRow(asset, quotes.get(asset.ticker().toUpperCase())));
+        }
+        return withAssets(response, assetResponses);
+    }
+
+    private static PortfolioResponse withAssets(PortfolioResponse response, List<AssetResponse> assetResponses) {
         response.setAssets(assetResponses);
 
-        double totalValue = assetResponses.stream()
-                .mapToDouble(AssetResponse::getTotalValue)
-                .sum();
-        response.setTotalValue(totalValue);
+        // Exact fixed-point sum: no drift however many assets, no boxing in the loop
+        long totalValueMicros = 0;
+        for (int i = 0; i < assetResponses.size(); i++) {
+            totalValueMicros = Math.addExact(totalValueMicros, assetResponses.get(i).getTotalValueMicros());
+        }
+        response.setTotalValue(FixedPoint.toDouble(totalValueMicros));
 
         return response;
     }
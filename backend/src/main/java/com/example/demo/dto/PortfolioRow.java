@@ -0,0 +1,7 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+/** Portfolio columns read straight into a projection, without loading the entity or its associations. */
+public record PortfolioRow(Long id, String name, Long userId, LocalDateTime createdAt) {
+}
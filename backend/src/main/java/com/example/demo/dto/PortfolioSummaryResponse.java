@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class PortfolioSummaryResponse {
+    private Long id;
+    private String name;
+    private LocalDateTime createdAt;
+    private Integer assetCount;
+    private Double totalValue;
+}
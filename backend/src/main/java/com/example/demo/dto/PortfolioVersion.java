@@ -0,0 +1,5 @@
+package com.example.demo.dto;
+
+/** A portfolio's id and revision, all that is needed to tell whether it changed. */
+public record PortfolioVersion(Long id, long version) {
+}
@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/** A position derived from the ledger, with cost basis and P&L under the portfolio's lot matching. */
+@Data
+public class PositionResponse {
+    private String ticker;
+    private CostBasisMethod method;
+    private Double quantity;
+    private Double costBasis;
+    private Double averageCost;
+    private Double realizedPnl;
+    private Double dividends;
+    private Double currentPrice;
+    private Double marketValue;
+    private Double unrealizedPnl;
+    private String priceStatus;
+    private List<TaxLot> lots;
+}
@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+/** Column-wise OHLC series; for {@code RAW} all four price columns hold the observed price. */
+@Data
+public class PriceHistoryResponse {
+    private String ticker;
+    private PriceResolution resolution;
+    private long[] timestamps;
+    private double[] open;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+}
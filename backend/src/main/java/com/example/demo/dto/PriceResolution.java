@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+/** Granularity of price history. {@code RAW} is every observed quote; the others are OHLC buckets. */
+public enum PriceResolution {
+    RAW(0),
+    MINUTE(60_000L),
+    HOUR(3_600_000L),
+    DAY(86_400_000L);
+
+    private final long bucketMillis;
+
+    PriceResolution(long bucketMillis) {
+        this.bucketMillis = bucketMillis;
+    }
+
+    public long bucketMillis() {
+        return bucketMillis;
+    }
+}
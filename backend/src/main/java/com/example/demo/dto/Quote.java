@@ -0,0 +1,38 @@
+package com.example.demo.dto;
+
+/**
+ * Price lookup result for a single ticker. A quote with status {@code ERROR}
+ * carries no price; callers decide how to present the missing value instead
+ * of substituting zero.
+ */
+public record Quote(String ticker, Double price, Status status, long timestamp, String error) {
+
+    public enum Status {
+        /** Fetched from the upstream provider for this request */
+        LIVE,
+        /** Served from the quote cache within the fresh TTL */
+        CACHED,
+        /** Served from the quote cache past the fresh TTL while a refresh runs */
+        STALE,
+        /** Upstream rate limit reached, last known price served */
+        THROTTLED,
+        /** Upstream failing or its circuit breaker open, last known price served */
+        DEGRADED,
+        /** Upstream unavailable or disabled, mock price served */
+        MOCK,
+        /** No price could be obtained */
+        ERROR
+    }
+
+    public static Quote of(String ticker, double price, Status status, long timestamp) {
+        return new Quote(ticker, price, status, timestamp, null);
+    }
+
+    public static Quote error(String ticker, String error) {
+        return new Quote(ticker, null, Status.ERROR, System.currentTimeMillis(), error);
+    }
+
+    public boolean hasPrice() {
+        return price != null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+
+/** Outcome and throughput of one revaluation invocation; counts cover this invocation only. */
+public record RevaluationReport(LocalDate snapshotDate, long portfolios, long holdings, int tickersPriced,
+        long elapsedMillis, boolean resumed) {
+
+    public double holdingsPerSecond() {
+        return elapsedMillis == 0 ? holdings : holdings * 1000.0 / elapsedMillis;
+    }
+}
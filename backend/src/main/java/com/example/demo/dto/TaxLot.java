@@ -0,0 +1,5 @@
+package com.example.demo.dto;
+
+/** An open lot: shares still held from one purchase and their cost per share. */
+public record TaxLot(double quantity, double unitCost) {
+}
@@ -0,0 +1,10 @@
+package com.example.demo.dto;
+
+/**
+ * Kinds of ledger entries. For a SPLIT {@code quantity} is the ratio of new
+ * shares per old share; for a DIVIDEND {@code price} is the cash per share
+ * and {@code quantity} the shares it was paid on.
+ */
+public enum TransactionType {
+    BUY, SELL, DIVIDEND, SPLIT
+}
@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+/** Column-wise portfolio value series: current holdings valued at each bucket's closing prices. */
+@Data
+public class ValueHistoryResponse {
+    private Long portfolioId;
+    private PriceResolution resolution;
+    private long[] timestamps;
+    private double[] values;
+}
@@ -0,0 +1,29 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/** Company overview metadata kept per ticker so it is fetched from upstream only every few days. */
+@Entity
+@Table(name = "company_profiles")
+@Getter
+@Setter
+@ToString
+public class CompanyProfile {
+	@Id
+	@Column(length = 10)
+	private String ticker;
+
+	private String name;
+
+	private String sector;
+
+	private String industry;
+
+	@Column(name = "fetched_at", nullable = false)
+	private LocalDateTime fetchedAt;
+}
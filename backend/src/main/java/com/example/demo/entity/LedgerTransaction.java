@@ -0,0 +1,46 @@
+package com.example.demo.entity;
+
+import com.example.demo.dto.TransactionType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of a portfolio's append-only transaction ledger. Rows are never
+ * updated or deleted; ids give the order in which entries are applied.
+ */
+@Entity
+@Table(name = "ledger_transactions", indexes = @Index(
+		name = "idx_ledger_transactions_portfolio_ticker_id", columnList = "portfolio_id, ticker, id"))
+@Getter
+@Setter
+@ToString
+public class LedgerTransaction {
+	// Pooled sequence so bulk imports append their entries as JDBC batches
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_transactions_seq")
+	@SequenceGenerator(name = "ledger_transactions_seq", sequenceName = "ledger_transactions_seq", allocationSize = 50)
+	private Long id;
+
+	@Column(name = "portfolio_id", nullable = false, updatable = false)
+	private Long portfolioId;
+
+	@Column(length = 10, nullable = false, updatable = false)
+	private String ticker;
+
+	@Enumerated(EnumType.STRING)
+	@Column(length = 10, nullable = false, updatable = false)
+	private TransactionType type;
+
+	@Column(nullable = false, updatable = false)
+	private double quantity;
+
+	@Column(nullable = false, updatable = false)
+	private double price;
+
+	@Column(name = "executed_at", nullable = false, updatable = false)
+	private LocalDateTime executedAt = LocalDateTime.now();
+}
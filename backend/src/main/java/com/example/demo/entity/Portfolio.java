@@ -1,18 +1,20 @@
 package com.example.demo.entity;
 
+import com.example.demo.dto.CostBasisMethod;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "portfolios")
+@Table(name = "portfolios", indexes = @Index(name = "idx_portfolios_user_id_id", columnList = "user_id, id"))
 @Getter
 @Setter
 @ToString(exclude = { "assets" })
@@ -29,9 +31,22 @@ public class Portfolio {
 	@JoinColumn(name = "user_id", nullable = false)
 	private User user;
 
+	// Defaulted so ddl-auto=update can add the column to tables that already have rows
+	@Enumerated(EnumType.STRING)
+	@ColumnDefault("'FIFO'")
+	@Column(name = "cost_basis_method", length = 10, nullable = false)
+	private CostBasisMethod costBasisMethod = CostBasisMethod.FIFO;
+
 	@OneToMany(mappedBy = "portfolio", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
 	private Set<PortfolioAsset> assets = new HashSet<>();
 
+	// Revision of the portfolio and its holdings, bumped by every holding change.
+	// The default lets ddl-auto=update add the column to tables that already have rows
+	@Version
+	@ColumnDefault("0")
+	@Column(nullable = false)
+	private long version;
+
 	@Column(name = "created_at", nullable = false, updatable = false)
 	private LocalDateTime createdAt = LocalDateTime.now();
 }
\ No newline at end of file
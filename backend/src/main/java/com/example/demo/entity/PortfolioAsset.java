@@ -1,24 +1,29 @@
 package com.example.demo.entity;
 
+import com.example.demo.util.FixedPoint;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "portfolio_assets")
+@Table(name = "portfolio_assets", uniqueConstraints = @UniqueConstraint(
+		name = "uk_portfolio_assets_portfolio_ticker", columnNames = { "portfolio_id", "ticker" }))
 @Getter
 @Setter
 @ToString(exclude = { "portfolio" })
 public class PortfolioAsset {
+	// Pooled sequence rather than IDENTITY so Hibernate can batch inserts (bulk import)
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "portfolio_assets_seq")
+	@SequenceGenerator(name = "portfolio_assets_seq", sequenceName = "portfolio_assets_seq", allocationSize = 50)
 	private Long id;
 
 	@ManyToOne(fetch = FetchType.LAZY)
@@ -29,20 +34,22 @@ public class PortfolioAsset {
 	@Size(max = 10, message = "Ticker symbol must not exceed 10 characters")
 	private String ticker;
 
-	@NotNull(message = "Quantity is required")
+	// Fixed-point micro-units (see FixedPoint); a price of zero means none has been recorded yet
 	@Positive(message = "Quantity must be positive")
-	private Double quantity;
+	@ColumnDefault("0")
+	@Column(name = "quantity_micros", nullable = false)
+	private long quantityMicros;
 
-	@Positive(message = "Current price must be positive")
-	private Double currentPrice;
+	@PositiveOrZero(message = "Current price must not be negative")
+	@ColumnDefault("0")
+	@Column(name = "current_price_micros", nullable = false)
+	private long currentPriceMicros;
 
 	@Column(name = "added_at", nullable = false, updatable = false)
 	private LocalDateTime addedAt = LocalDateTime.now();
 
 	@Transient
-	public Double getTotalValue() {
-		return quantity != null && currentPrice != null
-				? quantity * currentPrice
-				: 0.0;
+	public long getTotalValueMicros() {
+		return FixedPoint.multiply(quantityMicros, currentPriceMicros);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/** End-of-day value of one portfolio, written by the nightly revaluation. */
+@Entity
+@Table(name = "portfolio_snapshots", uniqueConstraints = @UniqueConstraint(
+		name = "uk_portfolio_snapshots_portfolio_date", columnNames = { "portfolio_id", "snapshot_date" }))
+@Getter
+@Setter
+@ToString
+public class PortfolioSnapshot {
+	// Pooled sequence so each checkpointed chunk is inserted as JDBC batches
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "portfolio_snapshots_seq")
+	@SequenceGenerator(name = "portfolio_snapshots_seq", sequenceName = "portfolio_snapshots_seq", allocationSize = 50)
+	private Long id;
+
+	@Column(name = "portfolio_id", nullable = false)
+	private Long portfolioId;
+
+	@Column(name = "snapshot_date", nullable = false)
+	private LocalDate snapshotDate;
+
+	@ColumnDefault("0")
+	@Column(name = "total_value_micros", nullable = false)
+	private long totalValueMicros;
+
+	@Column(name = "asset_count", nullable = false)
+	private int assetCount;
+
+	@Column(name = "created_at", nullable = false, updatable = false)
+	private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,57 @@
+package com.example.demo.entity;
+
+import com.example.demo.dto.CostBasisMethod;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * A position as of {@code throughTransactionId} under one lot matching
+ * method. Positions are rebuilt from the latest snapshot plus the ledger
+ * entries after it, never from the full history.
+ */
+@Entity
+@Table(name = "position_snapshots", uniqueConstraints = @UniqueConstraint(
+		name = "uk_position_snapshots_position_through",
+		columnNames = { "portfolio_id", "ticker", "method", "through_transaction_id" }))
+@Getter
+@Setter
+@ToString
+public class PositionSnapshot {
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "position_snapshots_seq")
+	@SequenceGenerator(name = "position_snapshots_seq", sequenceName = "position_snapshots_seq", allocationSize = 50)
+	private Long id;
+
+	@Column(name = "portfolio_id", nullable = false)
+	private Long portfolioId;
+
+	@Column(length = 10, nullable = false)
+	private String ticker;
+
+	@Enumerated(EnumType.STRING)
+	@Column(length = 10, nullable = false)
+	private CostBasisMethod method;
+
+	@Column(name = "through_transaction_id", nullable = false)
+	private long throughTransactionId;
+
+	@Column(name = "realized_pnl", nullable = false)
+	private double realizedPnl;
+
+	@Column(nullable = false)
+	private double dividends;
+
+	// Open lots as encoded by TaxLotPosition; unbounded text since FIFO/LIFO keep one lot per buy
+	@JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+	@Column(nullable = false)
+	private String lots;
+
+	@Column(name = "created_at", nullable = false, updatable = false)
+	private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,47 @@
+package com.example.demo.entity;
+
+import com.example.demo.dto.PriceResolution;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * A closed hourly or daily OHLC bucket. Rows are only ever inserted; prices
+ * are fixed-point micro-units and {@code bucketStart} is epoch milliseconds.
+ */
+@Entity
+@Table(name = "price_candles", uniqueConstraints = @UniqueConstraint(
+		name = "uk_price_candles_ticker_resolution_start", columnNames = { "ticker", "resolution", "bucket_start" }),
+		indexes = @Index(name = "idx_price_candles_resolution_start", columnList = "resolution, bucket_start"))
+@Getter
+@Setter
+@ToString
+public class PriceCandle {
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "price_candles_seq")
+	@SequenceGenerator(name = "price_candles_seq", sequenceName = "price_candles_seq", allocationSize = 50)
+	private Long id;
+
+	@Column(length = 10, nullable = false)
+	private String ticker;
+
+	@Enumerated(EnumType.STRING)
+	@Column(length = 8, nullable = false)
+	private PriceResolution resolution;
+
+	@Column(name = "bucket_start", nullable = false)
+	private long bucketStart;
+
+	@Column(name = "open_micros", nullable = false)
+	private long openMicros;
+
+	@Column(name = "high_micros", nullable = false)
+	private long highMicros;
+
+	@Column(name = "low_micros", nullable = false)
+	private long lowMicros;
+
+	@Column(name = "close_micros", nullable = false)
+	private long closeMicros;
+}
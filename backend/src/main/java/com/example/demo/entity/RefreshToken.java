@@ -0,0 +1,50 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * One refresh token of a sign-in session. Only the SHA-256 digest of the
+ * token is stored. Every refresh uses the token up and issues the next one
+ * in the same {@code family}; presenting a used token again means it leaked,
+ * and the whole family is revoked.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+		@Index(name = "idx_refresh_tokens_family", columnList = "family"),
+		@Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at") })
+@Getter
+@Setter
+@ToString
+public class RefreshToken {
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "refresh_tokens_seq")
+	@SequenceGenerator(name = "refresh_tokens_seq", sequenceName = "refresh_tokens_seq", allocationSize = 50)
+	private Long id;
+
+	@Column(name = "token_hash", length = 64, nullable = false, unique = true)
+	@ToString.Exclude
+	private String tokenHash;
+
+	@Column(length = 36, nullable = false)
+	private String family;
+
+	@Column(name = "user_id", nullable = false)
+	private Long userId;
+
+	@Column(name = "expires_at", nullable = false)
+	private LocalDateTime expiresAt;
+
+	@Column(name = "used_at")
+	private LocalDateTime usedAt;
+
+	@Column(nullable = false)
+	private boolean revoked;
+
+	@Column(name = "created_at", nullable = false, updatable = false)
+	private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,43 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint of the revaluation for one snapshot date. It is updated in the
+ * same transaction as each chunk of snapshots, so a restarted run resumes
+ * after {@code lastPortfolioId} without duplicating or skipping portfolios.
+ */
+@Entity
+@Table(name = "revaluation_runs")
+@Getter
+@Setter
+@ToString
+public class RevaluationRun {
+	@Id
+	@Column(name = "snapshot_date")
+	private LocalDate snapshotDate;
+
+	@Column(name = "last_portfolio_id", nullable = false)
+	private long lastPortfolioId;
+
+	@Column(name = "portfolios_valued", nullable = false)
+	private long portfoliosValued;
+
+	@Column(name = "holdings_scanned", nullable = false)
+	private long holdingsScanned;
+
+	@Column(nullable = false)
+	private boolean completed;
+
+	@Column(name = "started_at", nullable = false)
+	private LocalDateTime startedAt = LocalDateTime.now();
+
+	@Column(name = "finished_at")
+	private LocalDateTime finishedAt;
+}
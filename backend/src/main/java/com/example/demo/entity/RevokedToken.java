@@ -0,0 +1,31 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * An access token revoked before its expiry, by {@code jti}. Rows are only
+ * needed until {@code expiresAt}; after that the token is rejected as
+ * expired anyway and the row is purged, so the table never holds more
+ * than one access token lifetime of revocations.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"))
+@Getter
+@Setter
+@ToString
+public class RevokedToken {
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "revoked_tokens_seq")
+	@SequenceGenerator(name = "revoked_tokens_seq", sequenceName = "revoked_tokens_seq", allocationSize = 50)
+	private Long id;
+
+	@Column(name = "token_id", length = 36, nullable = false, unique = true)
+	private String tokenId;
+
+	// Epoch millis, as carried by the token
+	@Column(name = "expires_at", nullable = false)
+	private long expiresAt;
+}
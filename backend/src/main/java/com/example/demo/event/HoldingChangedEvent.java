@@ -0,0 +1,15 @@
+package com.example.demo.event;
+
+/**
+ * Published by {@code PortfolioService} whenever a holding is opened, changed
+ * or closed. Listeners that keep derived state in memory subscribe after
+ * commit so rolled-back changes are never applied. {@code priceMicros} is
+ * the price stored on the holding by the change; amounts are micro-units.
+ */
+public record HoldingChangedEvent(Long portfolioId, String ticker, Type type, long quantityDeltaMicros,
+        long priceMicros) {
+
+    public enum Type {
+        OPENED, UPDATED, CLOSED
+    }
+}
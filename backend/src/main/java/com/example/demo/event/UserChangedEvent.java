@@ -0,0 +1,9 @@
+package com.example.demo.event;
+
+/**
+ * Published by {@code AuthService} whenever a user row is created or
+ * changed, including password hash updates, so cached principals for the
+ * username are dropped after commit.
+ */
+public record UserChangedEvent(String username) {
+}
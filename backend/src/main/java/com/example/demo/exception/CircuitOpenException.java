@@ -0,0 +1,10 @@
+package com.example.demo.exception;
+
+/**
+ * Thrown instead of calling a dependency whose circuit breaker is open.
+ */
+public class CircuitOpenException extends RuntimeException {
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
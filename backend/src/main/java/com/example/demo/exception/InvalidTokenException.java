@@ -0,0 +1,11 @@
+package com.example.demo.exception;
+
+/**
+ * Thrown when a refresh token is unknown, expired, revoked or replayed.
+ * Mapped to 401 Unauthorized so clients sign in again.
+ */
+public class InvalidTokenException extends RuntimeException {
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+}
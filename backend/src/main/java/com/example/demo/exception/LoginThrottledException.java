@@ -0,0 +1,12 @@
+package com.example.demo.exception;
+
+/**
+ * Thrown when a sign-in or registration is refused before any password
+ * hashing, either because the caller exceeded its attempt budget or because
+ * the hashing queue is full. Mapped to 429 Too Many Requests.
+ */
+public class LoginThrottledException extends RuntimeException {
+    public LoginThrottledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.exception;
+
+/**
+ * Thrown when an upstream market data call could not be scheduled within its
+ * wait budget because the provider's rate limit is exhausted.
+ */
+public class UpstreamThrottledException extends RuntimeException {
+    public UpstreamThrottledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.exception;
+
+/**
+ * Thrown when a market data provider answers but cannot serve the request:
+ * a 5xx or 429 response, or a rate-limit notice in the body.
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+}
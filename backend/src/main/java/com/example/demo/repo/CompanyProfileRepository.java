@@ -0,0 +1,7 @@
+package com.example.demo.repo;
+
+import com.example.demo.entity.CompanyProfile;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CompanyProfileRepository extends JpaRepository<CompanyProfile, String> {
+}
@@ -0,0 +1,16 @@
+package com.example.demo.repo;
+
+import com.example.demo.dto.CostBasisMethod;
+import com.example.demo.entity.LedgerTransaction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface LedgerTransactionRepository extends JpaRepository<LedgerTransaction, Long> {
+    /** Entries after each ticker's latest snapshot under {@code method}; all entries for unsnapshotted tickers. */
+    @Query("SELECT t FROM LedgerTransaction t WHERE t.portfolioId = :portfolioId AND t.id > COALESCE("
+            + "(SELECT MAX(s.throughTransactionId) FROM PositionSnapshot s WHERE s.portfolioId = t.portfolioId "
+            + "AND s.ticker = t.ticker AND s.method = :method), 0) ORDER BY t.id")
+    List<LedgerTransaction> findTailsByPortfolioId(Long portfolioId, CostBasisMethod method);
+}
@@ -1,18 +1,60 @@
 package com.example.demo.repo;
 
-import com.example.demo.entity.Portfolio;
+import com.example.demo.dto.AssetRow;
 import com.example.demo.entity.PortfolioAsset;
-
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-import org.springframework.data.jpa.repository.JpaRepository;
+public interface PortfolioAssetRepository extends JpaRepository<PortfolioAsset, Long> {
+    List<PortfolioAsset> findByPortfolioId(Long portfolioId);
 
-import java.util.Optional;
+    @Query("SELECT a.ticker FROM PortfolioAsset a WHERE a.portfolio.id = :portfolioId")
+    List<String> findTickersByPortfolioId(Long portfolioId);
 
-public interface PortfolioAssetRepository extends JpaRepository<PortfolioAsset, Long> {
-    Optional<PortfolioAsset> findByPortfolioIdAndTicker(Long portfolioId, String ticker);
-}
\ No newline at end of file
+    /** Atomically adds to an existing holding; returns 0 when the portfolio does not hold the ticker yet. */
+    @Modifying
+    @Query("UPDATE PortfolioAsset a SET a.quantityMicros = a.quantityMicros + :quantityMicros, "
+            + "a.currentPriceMicros = :priceMicros WHERE a.portfolio.id = :portfolioId AND a.ticker = :ticker")
+    int incrementQuantity(Long portfolioId, String ticker, long quantityMicros, long priceMicros);
+
+    /** Atomically takes from a holding; returns 0 when it holds less than {@code quantityMicros}. */
+    @Modifying
+    @Query("UPDATE PortfolioAsset a SET a.quantityMicros = a.quantityMicros - :quantityMicros, "
+            + "a.currentPriceMicros = :priceMicros WHERE a.portfolio.id = :portfolioId AND a.ticker = :ticker "
+            + "AND a.quantityMicros >= :quantityMicros")
+    int decrementQuantity(Long portfolioId, String ticker, long quantityMicros, long priceMicros);
+
+    /** Replaces a holding's quantity and price only if it still holds {@code expectedMicros}; returns 0 otherwise. */
+    @Modifying
+    @Query("UPDATE PortfolioAsset a SET a.quantityMicros = :quantityMicros, a.currentPriceMicros = :priceMicros "
+            + "WHERE a.portfolio.id = :portfolioId AND a.ticker = :ticker AND a.quantityMicros = :expectedMicros")
+    int replaceQuantity(Long portfolioId, String ticker, long expectedMicros, long quantityMicros, long priceMicros);
+
+    @Modifying
+    @Query("DELETE FROM PortfolioAsset a "
+            + "WHERE a.portfolio.id = :portfolioId AND a.ticker = :ticker AND a.quantityMicros <= 0")
+    int deleteEmptyHolding(Long portfolioId, String ticker);
+
+    @Query("SELECT a FROM PortfolioAsset a "
+            + "WHERE a.portfolio.id = :portfolioId AND a.ticker = :ticker AND a.portfolio.user.id = :userId")
+    Optional<PortfolioAsset> findOwnedAsset(Long portfolioId, String ticker, Long userId);
+
+    @Query("SELECT UPPER(a.ticker), COUNT(a) FROM PortfolioAsset a GROUP BY UPPER(a.ticker)")
+    List<Object[]> countHoldingsByTicker();
+
+    @Query("SELECT new com.example.demo.dto.AssetRow(a.portfolio.id, a.id, a.ticker, a.quantityMicros, a.currentPriceMicros, a.addedAt) "
+            + "FROM PortfolioAsset a WHERE a.portfolio.id IN :portfolioIds ORDER BY a.id")
+    List<AssetRow> findRowsByPortfolioIdIn(Collection<Long> portfolioIds);
+
+    @Query("SELECT new com.example.demo.dto.AssetRow(a.portfolio.id, a.id, a.ticker, a.quantityMicros, a.currentPriceMicros, a.addedAt) "
+            + "FROM PortfolioAsset a")
+    List<AssetRow> findAllRows();
+
+    @Query("SELECT DISTINCT UPPER(a.ticker) FROM PortfolioAsset a")
+    List<String> findDistinctTickers();
+}
@@ -1,14 +1,63 @@
 package com.example.demo.repo;
 
+import com.example.demo.dto.CostBasisMethod;
+import com.example.demo.dto.HoldingRow;
+import com.example.demo.dto.PortfolioRow;
+import com.example.demo.dto.PortfolioVersion;
 import com.example.demo.entity.Portfolio;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
-
-import java.util.List;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface PortfolioRepository extends JpaRepository<Portfolio, Long> {
-    List<Portfolio> findByUserId(Long userId);
-}
\ No newline at end of file
+    boolean existsByIdAndUserId(Long id, Long userId);
+
+    @Query("SELECT new com.example.demo.dto.PortfolioRow(p.id, p.name, p.user.id, p.createdAt) "
+            + "FROM Portfolio p WHERE p.user.id = :userId ORDER BY p.id")
+    List<PortfolioRow> findRowsByUserId(Long userId);
+
+    /** Keyset page: portfolios after {@code afterId} in id order, served by idx_portfolios_user_id_id. */
+    @Query("SELECT new com.example.demo.dto.PortfolioRow(p.id, p.name, p.user.id, p.createdAt) "
+            + "FROM Portfolio p WHERE p.user.id = :userId AND p.id > :afterId ORDER BY p.id")
+    List<PortfolioRow> findPageByUserId(Long userId, Long afterId, Limit limit);
+
+    @Query("SELECT new com.example.demo.dto.PortfolioRow(p.id, p.name, p.user.id, p.createdAt) "
+            + "FROM Portfolio p WHERE p.id = :id AND p.user.id = :userId")
+    Optional<PortfolioRow> findRowByIdAndUserId(Long id, Long userId);
+
+    @Query("SELECT p.version FROM Portfolio p WHERE p.id = :id AND p.user.id = :userId")
+    Optional<Long> findVersionByIdAndUserId(Long id, Long userId);
+
+    /** Id and revision of each of the user's portfolios, in id order. */
+    @Query("SELECT new com.example.demo.dto.PortfolioVersion(p.id, p.version) "
+            + "FROM Portfolio p WHERE p.user.id = :userId ORDER BY p.id")
+    List<PortfolioVersion> findVersionsByUserId(Long userId);
+
+    /** Marks the portfolio changed; holdings are written with bulk statements that never touch its row. */
+    @Modifying
+    @Query("UPDATE Portfolio p SET p.version = p.version + 1 WHERE p.id = :id")
+    int bumpVersion(Long id);
+
+    @Query("SELECT p.costBasisMethod FROM Portfolio p WHERE p.id = :id AND p.user.id = :userId")
+    Optional<CostBasisMethod> findCostBasisMethodByIdAndUserId(Long id, Long userId);
+
+    /**
+     * Every holding of every portfolio after {@code afterId}, in portfolio order, read through a
+     * forward-only cursor. Must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("SELECT new com.example.demo.dto.HoldingRow(p.id, a.ticker, COALESCE(a.quantityMicros, 0), "
+            + "COALESCE(a.currentPriceMicros, 0)) "
+            + "FROM Portfolio p LEFT JOIN p.assets a WHERE p.id > :afterId ORDER BY p.id")
+    Stream<HoldingRow> streamHoldingsAfter(Long afterId);
+}
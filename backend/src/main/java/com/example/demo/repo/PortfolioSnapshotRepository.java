@@ -0,0 +1,12 @@
+package com.example.demo.repo;
+
+import com.example.demo.entity.PortfolioSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PortfolioSnapshotRepository extends JpaRepository<PortfolioSnapshot, Long> {
+    List<PortfolioSnapshot> findByPortfolioIdAndSnapshotDateBetweenOrderBySnapshotDateAsc(
+            Long portfolioId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,16 @@
+package com.example.demo.repo;
+
+import com.example.demo.dto.CostBasisMethod;
+import com.example.demo.entity.PositionSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface PositionSnapshotRepository extends JpaRepository<PositionSnapshot, Long> {
+    /** The latest snapshot of each of the portfolio's positions under {@code method}. */
+    @Query("SELECT s FROM PositionSnapshot s WHERE s.portfolioId = :portfolioId AND s.method = :method "
+            + "AND s.throughTransactionId = (SELECT MAX(l.throughTransactionId) FROM PositionSnapshot l "
+            + "WHERE l.portfolioId = s.portfolioId AND l.ticker = s.ticker AND l.method = s.method)")
+    List<PositionSnapshot> findLatestByPortfolioId(Long portfolioId, CostBasisMethod method);
+}
@@ -0,0 +1,12 @@
+package com.example.demo.repo;
+
+import com.example.demo.dto.PriceResolution;
+import com.example.demo.entity.PriceCandle;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface PriceCandleRepository extends JpaRepository<PriceCandle, Long> {
+    List<PriceCandle> findByResolutionAndBucketStartGreaterThanEqualOrderByBucketStartAsc(
+            PriceResolution resolution, long bucketStart);
+}
@@ -0,0 +1,9 @@
+package com.example.demo.repo;
+
+import com.example.demo.entity.RevaluationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+
+public interface RevaluationRunRepository extends JpaRepository<RevaluationRun, LocalDate> {
+}
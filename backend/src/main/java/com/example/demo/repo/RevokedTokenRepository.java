@@ -0,0 +1,19 @@
+package com.example.demo.repo;
+
+import com.example.demo.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+    /** Revocations that still matter at {@code now}; bounded by the access token lifetime. */
+    List<RevokedToken> findByExpiresAtGreaterThan(long now);
+
+    boolean existsByTokenId(String tokenId);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(long now);
+}
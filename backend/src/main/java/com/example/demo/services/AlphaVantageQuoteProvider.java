@@ -0,0 +1,89 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.CompanyOverview;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Logger;
+
+@Component
+@ConditionalOnProperty(name = "stock.quote.provider", havingValue = "alphavantage", matchIfMissing = true)
+public class AlphaVantageQuoteProvider implements QuoteProvider {
+    private static final Logger logger = Logger.getLogger(AlphaVantageQuoteProvider.class.getName());
+
+    private final MarketDataHttpClient httpClient;
+    private final String apiKey;
+    private final String baseUrl;
+
+    public AlphaVantageQuoteProvider(
+            MarketDataHttpClient httpClient,
+            @Value("${alpha.vantage.api.key}") String apiKey,
+            @Value("${alpha.vantage.base-url:https://www.alphavantage.co}") String baseUrl) {
+        this.httpClient = httpClient;
+        this.apiKey = apiKey;
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    public String name() {
+        return "alphavantage";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return apiKey != null && !apiKey.equals("demo");
+    }
+
+    @Override
+    public boolean isRateLimited() {
+        return true;
+    }
+
+    @Override
+    public double fetchPrice(String ticker) throws Exception {
+        return await(fetchPriceAsync(ticker));
+    }
+
+    @Override
+    public Optional<CompanyOverview> fetchOverview(String ticker) throws Exception {
+        return Optional.of(await(fetchOverviewAsync(ticker)));
+    }
+
+    public CompletableFuture<Double> fetchPriceAsync(String ticker) {
+        URI uri = queryUri("GLOBAL_QUOTE", ticker);
+        logger.info("Calling Alpha Vantage API: GLOBAL_QUOTE " + ticker);
+        return httpClient.getAsync(uri, body -> AlphaVantageResponseParser.parseGlobalQuote(body, ticker))
+                .thenApply(quote -> {
+                    logger.info("Successfully fetched price for " + ticker + ": $" + quote.price());
+                    return quote.price();
+                });
+    }
+
+    public CompletableFuture<CompanyOverview> fetchOverviewAsync(String ticker) {
+        return httpClient.getAsync(queryUri("OVERVIEW", ticker),
+                body -> AlphaVantageResponseParser.parseOverview(body, ticker));
+    }
+
+    private URI queryUri(String function, String ticker) {
+        return URI.create(String.format("%s/query?function=%s&symbol=%s&apikey=%s",
+                baseUrl, function, URLEncoder.encode(ticker, StandardCharsets.UTF_8), apiKey));
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.CompanyOverview;
+import com.example.demo.exception.UpstreamUnavailableException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Token-level parser for Alpha Vantage responses.
+ *
+ * Reads straight from the response stream and pulls out only the fields we
+ * use, skipping everything else without building a tree. Numeric quote fields
+ * are parsed from the parser's character buffer, so a GLOBAL_QUOTE response
+ * is handled without allocating per-field strings. OVERVIEW parsing stops as
+ * soon as name, sector and industry have been seen.
+ */
+public final class AlphaVantageResponseParser {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /** Fields read from a GLOBAL_QUOTE response. */
+    public record QuoteFields(double price, double change, long volume) {
+    }
+
+    private AlphaVantageResponseParser() {
+    }
+
+    public static QuoteFields parseGlobalQuote(InputStream body, String ticker) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            expectObject(parser, ticker);
+
+            boolean found = false;
+            double price = Double.NaN;
+            double change = 0;
+            long volume = 0;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("Global Quote".equals(field) && value == JsonToken.START_OBJECT) {
+                    found = true;
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String quoteField = parser.currentName();
+                        parser.nextToken();
+                        switch (quoteField) {
+                            case "05. price" -> price = parseDecimal(parser);
+                            case "06. volume" -> volume = (long) parseDecimal(parser);
+                            case "09. change" -> change = parseDecimal(parser);
+                            default -> parser.skipChildren();
+                        }
+                    }
+                } else {
+                    rejectError(parser, field, ticker);
+                    parser.skipChildren();
+                }
+            }
+
+            if (!found) {
+                throw new RuntimeException("No data found for ticker: " + ticker);
+            }
+            if (Double.isNaN(price)) {
+                throw new RuntimeException("Price not found in response for ticker: " + ticker);
+            }
+            return new QuoteFields(price, change, volume);
+        }
+    }
+
+    public static CompanyOverview parseOverview(InputStream body, String ticker) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            expectObject(parser, ticker);
+
+            String name = null;
+            String sector = null;
+            String industry = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "Name" -> name = parser.getValueAsString();
+                    case "Sector" -> sector = parser.getValueAsString();
+                    case "Industry" -> industry = parser.getValueAsString();
+                    default -> {
+                        rejectError(parser, field, ticker);
+                        parser.skipChildren();
+                    }
+                }
+                if (name != null && sector != null && industry != null) {
+                    // Everything after this (descriptions, ratios, ...) is never read
+                    break;
+                }
+            }
+
+            if (name == null) {
+                throw new RuntimeException("No overview found for ticker: " + ticker);
+            }
+            return new CompanyOverview(name, sector, industry);
+        }
+    }
+
+    private static void expectObject(JsonParser parser, String ticker) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new RuntimeException("Alpha Vantage API returned error for ticker: " + ticker);
+        }
+    }
+
+    private static void rejectError(JsonParser parser, String field, String ticker) throws IOException {
+        // Notes and information messages are Alpha Vantage's rate-limit notices
+        if ("Information".equals(field) || "Note".equals(field)) {
+            throw new UpstreamUnavailableException("Alpha Vantage API is throttling requests for ticker: " + ticker
+                    + ": " + parser.getValueAsString());
+        }
+        if ("Error Message".equals(field)) {
+            throw new RuntimeException("Alpha Vantage API returned error for ticker: " + ticker
+                    + ": " + parser.getValueAsString());
+        }
+    }
+
+    /**
+     * Parses a quoted decimal such as {@code "187.4400"} or {@code "-1.25"}
+     * directly from the parser's text buffer.
+     */
+    static double parseDecimal(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT || parser.currentToken() == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDoubleValue();
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int end = offset + parser.getTextLength();
+
+        int i = offset;
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int scale = 0;
+        boolean fraction = false;
+        int digits = 0;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c == '.' && !fraction) {
+                fraction = true;
+            } else if (c >= '0' && c <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits++;
+                    if (fraction) {
+                        scale++;
+                    }
+                } else if (!fraction) {
+                    // Beyond long precision: keep the magnitude, drop the digit
+                    scale--;
+                }
+            } else {
+                // Anything unusual (exponents, "None", ...) goes through the JDK parser
+                return Double.parseDouble(parser.getText());
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Not a number: " + parser.getText());
+        }
+
+        double value = scale >= 0 ? mantissa / Math.pow(10, scale) : mantissa * Math.pow(10, -scale);
+        return negative ? -value : value;
+    }
+}
@@ -1,33 +1,60 @@
 package com.example.demo.services;
 
+import com.example.demo.dto.AuthTokens;
 import com.example.demo.entity.User;
+import com.example.demo.event.UserChangedEvent;
+import com.example.demo.exception.LoginThrottledException;
 import com.example.demo.repo.UserRepository;
-import com.example.demo.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.logging.Logger;
+
 @Service
 @RequiredArgsConstructor
 public class AuthService {
+    private static final Logger logger = Logger.getLogger(AuthService.class.getName());
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
-    private final JwtUtil jwtUtil;
+    private final PasswordHasher passwordHasher;
+    private final LoginThrottle loginThrottle;
+    private final RefreshTokenService refreshTokenService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public String register(String username, String password, String email) {
+    public AuthTokens register(String username, String password, String email, String clientAddress) {
+        loginThrottle.checkRegistration(clientAddress);
         User user = new User();
         user.setUsername(username);
-        user.setPassword(passwordEncoder.encode(password));
+        user.setPassword(passwordHasher.encode(password));
         user.setEmail(email);
         userRepository.save(user);
-        return jwtUtil.generateToken(username);
+        eventPublisher.publishEvent(new UserChangedEvent(username));
+        return refreshTokenService.issue(user.getId(), username);
     }
 
-    public String login(String username, String password) {
+    public AuthTokens login(String username, String password, String clientAddress) {
+        // Budgets are checked before the lookup and the hash, so refused attempts cost nothing
+        loginThrottle.checkLogin(username, clientAddress);
         User user = userRepository.findByUsername(username).orElseThrow();
-        if (passwordEncoder.matches(password, user.getPassword())) {
-            return jwtUtil.generateToken(username);
+        if (!passwordHasher.matches(password, user.getPassword())) {
+            throw new RuntimeException("Invalid credentials");
         }
-        throw new RuntimeException("Invalid credentials");
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            rehash(user, password);
+        }
+        return refreshTokenService.issue(user.getId(), username);
+    }
+
+    /** Re-hashes at the configured cost while the plain password is at hand; retried next login if busy. */
+    private void rehash(User user, String password) {
+        try {
+            user.setPassword(passwordHasher.encode(password));
+        } catch (LoginThrottledException e) {
+            logger.info("Hashing queue full, deferring re-hash for " + user.getUsername());
+            return;
+        }
+        userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getUsername()));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,129 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.CompanyOverview;
+import com.example.demo.entity.CompanyProfile;
+import com.example.demo.repo.CompanyProfileRepository;
+import com.example.demo.services.UpstreamRequestScheduler.Priority;
+import com.example.demo.util.SingleFlight;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * Long-lived store for company name, sector and industry.
+ *
+ * Profiles are persisted in {@code company_profiles} and loaded into memory
+ * at startup, so lookups never touch the database or the provider. A ticker
+ * is fetched inline only the first time it is seen; profiles older than the
+ * TTL are still served and refreshed in the background at background
+ * priority. Failed or empty lookups are not retried before {@code retry-after}
+ * so unknown symbols do not keep spending upstream quota.
+ */
+@Component
+public class CompanyMetadataStore {
+    private static final Logger logger = Logger.getLogger(CompanyMetadataStore.class.getName());
+
+    private record Entry(CompanyOverview overview, long fetchedAt) {
+    }
+
+    private final CompanyProfileRepository profileRepository;
+    private final QuoteProvider quoteProvider;
+    private final UpstreamGuard upstreamGuard;
+    private final long ttlMillis;
+    private final long retryAfterMillis;
+
+    private final Map<String, Entry> profiles = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastFailure = new ConcurrentHashMap<>();
+    private final SingleFlight<String, Optional<CompanyOverview>> inFlight = new SingleFlight<>();
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public CompanyMetadataStore(
+            CompanyProfileRepository profileRepository,
+            QuoteProvider quoteProvider,
+            UpstreamGuard upstreamGuard,
+            @Value("${stock.metadata.ttl:604800000}") long ttlMillis,
+            @Value("${stock.metadata.retry-after:3600000}") long retryAfterMillis) {
+        this.profileRepository = profileRepository;
+        this.quoteProvider = quoteProvider;
+        this.upstreamGuard = upstreamGuard;
+        this.ttlMillis = ttlMillis;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (CompanyProfile profile : profileRepository.findAll()) {
+            profiles.put(profile.getTicker(), new Entry(
+                    new CompanyOverview(profile.getName(), profile.getSector(), profile.getIndustry()),
+                    profile.getFetchedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+        }
+        logger.info("Loaded " + profiles.size() + " company profiles");
+    }
+
+    /** Overview for an upper-case ticker, fetched inline only if it has never been stored. */
+    public Optional<CompanyOverview> find(String ticker) {
+        Entry entry = profiles.get(ticker);
+        if (entry != null) {
+            if (System.currentTimeMillis() - entry.fetchedAt() > ttlMillis && mayFetch(ticker)) {
+                refreshExecutor.execute(() -> fetch(ticker, Priority.BACKGROUND));
+            }
+            return Optional.of(entry.overview());
+        }
+        if (!quoteProvider.isAvailable() || !mayFetch(ticker)) {
+            return Optional.empty();
+        }
+        return fetch(ticker, Priority.INTERACTIVE);
+    }
+
+    public int size() {
+        return profiles.size();
+    }
+
+    private boolean mayFetch(String ticker) {
+        Long failedAt = lastFailure.get(ticker);
+        return failedAt == null || System.currentTimeMillis() - failedAt > retryAfterMillis;
+    }
+
+    private Optional<CompanyOverview> fetch(String ticker, Priority priority) {
+        try {
+            return inFlight.await(ticker, () -> {
+                Optional<CompanyOverview> overview = upstreamGuard.call(priority,
+                        () -> quoteProvider.fetchOverview(ticker));
+                if (overview.isPresent()) {
+                    store(ticker, overview.get());
+                } else {
+                    lastFailure.put(ticker, System.currentTimeMillis());
+                }
+                return overview;
+            });
+        } catch (Exception e) {
+            lastFailure.put(ticker, System.currentTimeMillis());
+            logger.warning("Failed to fetch company overview for " + ticker + ": " + e.getMessage());
+            return Optional.ofNullable(profiles.get(ticker)).map(Entry::overview);
+        }
+    }
+
+    private void store(String ticker, CompanyOverview overview) {
+        long now = System.currentTimeMillis();
+        profiles.put(ticker, new Entry(overview, now));
+        lastFailure.remove(ticker);
+
+        CompanyProfile profile = new CompanyProfile();
+        profile.setTicker(ticker);
+        profile.setName(overview.name());
+        profile.setSector(overview.sector());
+        profile.setIndustry(overview.industry());
+        profile.setFetchedAt(LocalDateTime.now());
+        profileRepository.save(profile);
+    }
+}
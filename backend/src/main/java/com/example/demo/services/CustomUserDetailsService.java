@@ -1,26 +1,113 @@
 package com.example.demo.services;
 
+import com.example.demo.config.AuthenticatedUser;
 import com.example.demo.entity.User;
+import com.example.demo.event.UserChangedEvent;
 import com.example.demo.repo.UserRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Loads principals by username through a bounded cache.
+ *
+ * Entries live for the configured TTL, so changes made outside the
+ * application are picked up eventually; changes made through it publish a
+ * {@link UserChangedEvent} that drops the entry as soon as they commit.
+ * Unknown usernames are not cached.
+ */
 @Service
-@RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, MeterBinder {
+
+    private record Entry(AuthenticatedUser user, long loadedAt) {
+    }
+
     private final UserRepository userRepository;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Map<String, Entry> principals;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CustomUserDetailsService(
+            UserRepository userRepository,
+            @Value("${auth.principal-cache.max-size:10000}") int maxSize,
+            @Value("${auth.principal-cache.ttl:300000}") long ttlMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Principal cache size must be positive");
+        }
+        this.userRepository = userRepository;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.principals = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > CustomUserDetailsService.this.maxSize;
+            }
+        };
+    }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        long now = System.currentTimeMillis();
+        synchronized (principals) {
+            Entry entry = principals.get(username);
+            if (entry != null && now - entry.loadedAt() <= ttlMillis) {
+                hits.incrementAndGet();
+                return entry.user();
+            }
+        }
+
+        misses.incrementAndGet();
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        return new org.springframework.security.core.userdetails.User(
-                user.getUsername(), user.getPassword(), Collections.emptyList() // Add roles if needed
+        AuthenticatedUser principal = new AuthenticatedUser(
+                user.getId(), user.getUsername(), user.getPassword(), Collections.emptyList() // Add roles if needed
         );
+        synchronized (principals) {
+            principals.put(username, new Entry(principal, now));
+        }
+        return principal;
+    }
+
+    // Outside a transaction the event is applied immediately
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.username());
+    }
+
+    public void evict(String username) {
+        synchronized (principals) {
+            principals.remove(username);
+        }
+    }
+
+    public int size() {
+        synchronized (principals) {
+            return principals.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.principal.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("auth.principal.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss").register(registry);
+        Gauge.builder("auth.principal.cache.size", this, CustomUserDetailsService::size)
+                .register(registry);
     }
-}
\ No newline at end of file
+}
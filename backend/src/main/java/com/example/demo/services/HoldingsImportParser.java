@@ -0,0 +1,231 @@
+package com.example.demo.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming parser for holdings uploads.
+ *
+ * CSV is read line by line; a header naming the ticker ({@code ticker} or
+ * {@code symbol}) and quantity ({@code quantity}, {@code shares} or
+ * {@code qty}) columns is optional, otherwise the first two columns are used.
+ * JSON is a top-level array of {@code {"ticker": ..., "quantity": ...}}
+ * objects read token by token. Rows for the same ticker are merged as they
+ * are read, so memory grows with distinct tickers rather than upload size.
+ */
+public final class HoldingsImportParser {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int MAX_TICKER_LENGTH = 10;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    public enum Format {
+        CSV, JSON;
+
+        public static Format fromContentType(String contentType, String filename) {
+            String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+            String name = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+            if (type.contains("json") || name.endsWith(".json")) {
+                return JSON;
+            }
+            if (type.contains("csv") || type.startsWith("text/") || name.endsWith(".csv")) {
+                return CSV;
+            }
+            throw new RuntimeException("Unsupported import format: upload CSV or JSON");
+        }
+    }
+
+    /** Merged quantities by normalised ticker, in first-seen order, plus per-row problems. */
+    public record ParsedHoldings(Map<String, Double> quantities, int rowsRead, int rowsRejected, List<String> errors) {
+    }
+
+    private HoldingsImportParser() {
+    }
+
+    public static ParsedHoldings parse(InputStream body, Format format, int maxRows) throws IOException {
+        Accumulator accumulator = new Accumulator(maxRows);
+        if (format == Format.JSON) {
+            parseJson(body, accumulator);
+        } else {
+            parseCsv(body, accumulator);
+        }
+        return new ParsedHoldings(accumulator.quantities, accumulator.rows, accumulator.rejectedRows,
+                accumulator.errors);
+    }
+
+    private static void parseCsv(InputStream body, Accumulator accumulator) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        int tickerColumn = 0;
+        int quantityColumn = 1;
+        boolean first = true;
+        int lineNumber = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = splitCsvLine(line);
+            if (first) {
+                first = false;
+                int headerTicker = indexOf(fields, "ticker", "symbol");
+                int headerQuantity = indexOf(fields, "quantity", "shares", "qty");
+                if (headerTicker >= 0 && headerQuantity >= 0) {
+                    tickerColumn = headerTicker;
+                    quantityColumn = headerQuantity;
+                    continue;
+                }
+            }
+            String ticker = tickerColumn < fields.size() ? fields.get(tickerColumn) : null;
+            String quantity = quantityColumn < fields.size() ? fields.get(quantityColumn) : null;
+            accumulator.add("line " + lineNumber, ticker, quantity);
+        }
+    }
+
+    private static void parseJson(InputStream body, Accumulator accumulator) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new RuntimeException("JSON import must be an array of {\"ticker\", \"quantity\"} objects");
+            }
+            int index = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new RuntimeException("JSON import ended before the closing ]");
+                }
+                String position = "item " + index++;
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    accumulator.rejectRow(position + ": expected a {\"ticker\", \"quantity\"} object");
+                    continue;
+                }
+                String ticker = null;
+                String quantity = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName().toLowerCase(Locale.ROOT);
+                    parser.nextToken();
+                    switch (field) {
+                        case "ticker", "symbol" -> ticker = scalarValue(parser);
+                        case "quantity", "shares", "qty" -> quantity = scalarValue(parser);
+                        default -> parser.skipChildren();
+                    }
+                }
+                accumulator.add(position, ticker, quantity);
+            }
+        }
+    }
+
+    // Objects and arrays are skipped whole so the parser stays on the item; the row is then rejected
+    private static String scalarValue(JsonParser parser) throws IOException {
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getValueAsString();
+    }
+
+    private static int indexOf(List<String> header, String... names) {
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).toLowerCase(Locale.ROOT);
+            for (String name : names) {
+                if (column.equals(name)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** Splits one CSV line, honouring double-quoted fields and doubled quotes inside them. */
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private static final class Accumulator {
+        private final int maxRows;
+        private final Map<String, Double> quantities = new LinkedHashMap<>();
+        private final List<String> errors = new ArrayList<>();
+        private int rows;
+        private int rejectedRows;
+
+        Accumulator(int maxRows) {
+            this.maxRows = maxRows;
+        }
+
+        void add(String position, String rawTicker, String rawQuantity) {
+            countRow();
+            String ticker = rawTicker == null ? "" : rawTicker.trim().toUpperCase(Locale.ROOT);
+            if (ticker.isEmpty() || ticker.length() > MAX_TICKER_LENGTH) {
+                reject(position + ": invalid ticker '" + rawTicker + "'");
+                return;
+            }
+            double quantity;
+            try {
+                // Broker exports often group thousands: "1,250.5"
+                quantity = Double.parseDouble(rawQuantity.replace(",", "").trim());
+            } catch (RuntimeException e) {
+                reject(position + ": invalid quantity '" + rawQuantity + "' for " + ticker);
+                return;
+            }
+            if (!(quantity > 0) || Double.isInfinite(quantity)) {
+                reject(position + ": quantity must be positive for " + ticker);
+                return;
+            }
+            quantities.merge(ticker, quantity, Double::sum);
+        }
+
+        void rejectRow(String message) {
+            countRow();
+            reject(message);
+        }
+
+        private void countRow() {
+            if (++rows > maxRows) {
+                throw new RuntimeException("Import exceeds the limit of " + maxRows + " rows");
+            }
+        }
+
+        private void reject(String message) {
+            rejectedRows++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.ImportResultResponse;
+import com.example.demo.dto.Quote;
+import com.example.demo.dto.TransactionType;
+import com.example.demo.entity.Portfolio;
+import com.example.demo.entity.PortfolioAsset;
+import com.example.demo.event.HoldingChangedEvent;
+import com.example.demo.repo.PortfolioAssetRepository;
+import com.example.demo.repo.PortfolioRepository;
+import com.example.demo.services.HoldingsImportParser.Format;
+import com.example.demo.services.HoldingsImportParser.ParsedHoldings;
+import com.example.demo.util.FixedPoint;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Bulk import of holdings from broker CSV or JSON exports.
+ *
+ * The upload is parsed as a stream with duplicate tickers merged in memory,
+ * then every distinct ticker is priced in one batch before any transaction
+ * starts. The write runs in a single transaction under the portfolio row
+ * lock: existing holdings get the same atomic increment as a single add, and
+ * new ones are inserted, which Hibernate sends as JDBC batches.
+ * Holdings that could not be priced are reported and left out, since the
+ * ledger has no cost to book them at.
+ */
+@Service
+public class HoldingsImportService {
+    private static final Logger logger = Logger.getLogger(HoldingsImportService.class.getName());
+
+    private record WriteResult(int opened, int updated) {
+    }
+
+    private final PortfolioRepository portfolioRepository;
+    private final PortfolioAssetRepository assetRepository;
+    private final StockService stockService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionLedger ledger;
+    private final int maxRows;
+
+    public HoldingsImportService(
+            PortfolioRepository portfolioRepository,
+            PortfolioAssetRepository assetRepository,
+            StockService stockService,
+            ApplicationEventPublisher eventPublisher,
+            TransactionTemplate transactionTemplate,
+            TransactionLedger ledger,
+            @Value("${portfolio.import.max-rows:10000}") int maxRows) {
+        this.portfolioRepository = portfolioRepository;
+        this.assetRepository = assetRepository;
+        this.stockService = stockService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.ledger = ledger;
+        this.maxRows = maxRows;
+    }
+
+    public ImportResultResponse importHoldings(Long portfolioId, Long userId, InputStream body, Format format) {
+        if (!portfolioRepository.existsByIdAndUserId(portfolioId, userId)) {
+            throw new RuntimeException("Portfolio not found");
+        }
+
+        ParsedHoldings parsed;
+        try {
+            parsed = HoldingsImportParser.parse(body, format, maxRows);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read import: " + e.getMessage());
+        }
+
+        // One deduplicated quote batch for the whole upload, outside the write transaction
+        Map<String, Quote> quotes = parsed.quantities().isEmpty()
+                ? Map.of()
+                : stockService.getCurrentPrices(parsed.quantities().keySet());
+
+        // A BUY at zero would open a zero-cost tax lot and book the whole of any later sale as profit
+        Map<String, Double> priced = new LinkedHashMap<>();
+        List<String> errors = new ArrayList<>(parsed.errors());
+        parsed.quantities().forEach((ticker, quantity) -> {
+            Quote quote = quotes.get(ticker);
+            if (quote != null && quote.hasPrice()) {
+                priced.put(ticker, quantity);
+            } else {
+                errors.add("No price available for " + ticker + ", holding not imported");
+            }
+        });
+
+        WriteResult result = new WriteResult(0, 0);
+        if (!priced.isEmpty()) {
+            try {
+                result = transactionTemplate.execute(status -> write(portfolioId, priced, quotes));
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent add opened one of these holdings first; on retry it is an update
+                result = transactionTemplate.execute(status -> write(portfolioId, priced, quotes));
+            }
+        }
+        logger.info("Imported " + priced.size() + " holdings from " + parsed.rowsRead()
+                + " rows into portfolio " + portfolioId);
+
+        ImportResultResponse response = new ImportResultResponse();
+        response.setRowsRead(parsed.rowsRead());
+        response.setRowsRejected(parsed.rowsRejected());
+        response.setHoldingsOpened(result.opened());
+        response.setHoldingsUpdated(result.updated());
+        response.setErrors(errors);
+        return response;
+    }
+
+    private WriteResult write(Long portfolioId, Map<String, Double> quantities, Map<String, Quote> quotes) {
+        // Lock the portfolio row first: every holding write does, so the held tickers cannot change under us
+        portfolioRepository.bumpVersion(portfolioId);
+        Set<String> held = new HashSet<>(assetRepository.findTickersByPortfolioId(portfolioId));
+        Portfolio portfolio = portfolioRepository.getReferenceById(portfolioId);
+
+        List<PortfolioAsset> inserts = new ArrayList<>();
+        int updated = 0;
+        for (Map.Entry<String, Double> holding : quantities.entrySet()) {
+            String ticker = holding.getKey();
+            long quantityMicros = FixedPoint.toMicros(holding.getValue());
+            // Only priced holdings reach the write
+            long priceMicros = FixedPoint.toMicros(quotes.get(ticker).price());
+
+            HoldingChangedEvent.Type type;
+            // The same atomic increment as addAsset, so neither overwrites the other
+            if (held.contains(ticker)
+                    && assetRepository.incrementQuantity(portfolioId, ticker, quantityMicros, priceMicros) > 0) {
+                type = HoldingChangedEvent.Type.UPDATED;
+                updated++;
+            } else {
+                PortfolioAsset asset = new PortfolioAsset();
+                asset.setPortfolio(portfolio);
+                asset.setTicker(ticker);
+                asset.setQuantityMicros(quantityMicros);
+                asset.setCurrentPriceMicros(priceMicros);
+                inserts.add(asset);
+                type = HoldingChangedEvent.Type.OPENED;
+            }
+            ledger.append(portfolioId, ticker, TransactionType.BUY, holding.getValue(),
+                    FixedPoint.toDouble(priceMicros));
+            eventPublisher.publishEvent(new HoldingChangedEvent(portfolioId, ticker, type, quantityMicros,
+                    priceMicros));
+        }
+
+        // New holdings go out as JDBC batches; flushed so a unique index violation triggers the retry
+        assetRepository.saveAll(inserts);
+        assetRepository.flush();
+        return new WriteResult(inserts.size(), updated);
+    }
+}
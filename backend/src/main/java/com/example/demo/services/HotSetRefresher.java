@@ -0,0 +1,83 @@
+package com.example.demo.services;
+
+import com.example.demo.event.HoldingChangedEvent;
+import com.example.demo.repo.PortfolioAssetRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Refreshes the hottest tickers ahead of demand so request threads are served
+ * from a fresh cache. Each cycle refreshes at most {@code batch-size} tickers
+ * whose cached price is older than {@code ahead}; size the batch and interval
+ * to leave part of the Alpha Vantage budget for interactive lookups.
+ */
+@Component
+@RequiredArgsConstructor
+public class HotSetRefresher {
+    private static final Logger logger = Logger.getLogger(HotSetRefresher.class.getName());
+
+    private final HotTickerSet hotSet;
+    private final QuoteCache quoteCache;
+    private final StockService stockService;
+    private final PortfolioAssetRepository assetRepository;
+
+    @Value("${stock.refresh.batch-size:4}")
+    private int batchSize;
+
+    @Value("${stock.refresh.ahead:45000}")
+    private long refreshAheadMillis;
+
+    // Seeding overwrites holder counts, so it must finish before any holding can change:
+    // at construction, ahead of the web server and the scheduled jobs
+    @PostConstruct
+    public void loadHoldings() {
+        // The only full scan: afterwards holdings are tracked from HoldingChangedEvents
+        Map<String, Long> holdings = new HashMap<>();
+        for (Object[] row : assetRepository.countHoldingsByTicker()) {
+            holdings.put((String) row[0], (Long) row[1]);
+        }
+        hotSet.seedHoldings(holdings);
+        logger.info("Hot set seeded with " + holdings.size() + " held tickers");
+    }
+
+    @TransactionalEventListener
+    public void onHoldingChanged(HoldingChangedEvent event) {
+        switch (event.type()) {
+            case OPENED -> hotSet.holdingOpened(event.ticker());
+            case CLOSED -> hotSet.holdingClosed(event.ticker());
+            case UPDATED -> {
+                // Quantity changes do not affect which tickers are held
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stock.refresh.interval:60000}", initialDelayString = "${stock.refresh.interval:60000}")
+    public void refreshHotSet() {
+        hotSet.decay();
+        if (!stockService.isProviderAvailable()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        List<String> due = hotSet.hottest().stream()
+                .filter(ticker -> quoteCache.lastKnown(ticker)
+                        .map(cached -> now - cached.fetchedAt() >= refreshAheadMillis)
+                        .orElse(true))
+                .limit(batchSize)
+                .toList();
+
+        if (!due.isEmpty()) {
+            logger.info("Refreshing hot tickers ahead of demand: " + due);
+            stockService.refresh(due);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tickers worth keeping warm: every held ticker plus anything read often.
+ *
+ * Each ticker carries the number of holdings that reference it and an
+ * exponentially decayed read score. Holdings are kept up to date through
+ * {@link #holdingOpened}/{@link #holdingClosed}; reads are counted by
+ * {@link StockService} and folded into the score on every {@link #decay}.
+ */
+@Component
+public class HotTickerSet implements MeterBinder {
+
+    private static final class Heat {
+        final AtomicInteger holders = new AtomicInteger();
+        final LongAdder recentReads = new LongAdder();
+        // Only written by the refresher thread in decay()
+        volatile double readScore;
+
+        double weight(double holderWeight) {
+            return holders.get() * holderWeight + readScore + recentReads.sum();
+        }
+    }
+
+    private final Map<String, Heat> tickers = new ConcurrentHashMap<>();
+    private final int maxTracked;
+    private final double decayFactor;
+    private final double holderWeight;
+
+    public HotTickerSet(
+            @Value("${stock.refresh.max-tracked:5000}") int maxTracked,
+            @Value("${stock.refresh.decay:0.5}") double decayFactor,
+            @Value("${stock.refresh.holder-weight:1.0}") double holderWeight) {
+        this.maxTracked = maxTracked;
+        this.decayFactor = decayFactor;
+        this.holderWeight = holderWeight;
+    }
+
+    public void recordRead(String ticker) {
+        Heat heat = tickers.get(ticker);
+        if (heat == null) {
+            if (tickers.size() >= maxTracked) {
+                return;
+            }
+            heat = tickers.computeIfAbsent(ticker, t -> new Heat());
+        }
+        heat.recentReads.increment();
+    }
+
+    public void holdingOpened(String ticker) {
+        // Inside compute, so decay() cannot drop the entry between lookup and increment
+        tickers.compute(ticker, (t, heat) -> {
+            Heat opened = heat != null ? heat : new Heat();
+            opened.holders.incrementAndGet();
+            return opened;
+        });
+    }
+
+    public void holdingClosed(String ticker) {
+        Heat heat = tickers.get(ticker);
+        if (heat != null) {
+            heat.holders.updateAndGet(holders -> Math.max(0, holders - 1));
+        }
+    }
+
+    /** Replaces holder counts with a full snapshot, used once at startup. */
+    public void seedHoldings(Map<String, Long> holdingsByTicker) {
+        holdingsByTicker.forEach((ticker, count) -> tickers.compute(ticker, (t, heat) -> {
+            Heat seeded = heat != null ? heat : new Heat();
+            seeded.holders.set(count.intValue());
+            return seeded;
+        }));
+    }
+
+    /**
+     * Folds recent reads into the decayed score and drops tickers that are
+     * neither held nor read any more.
+     */
+    public void decay() {
+        for (String ticker : tickers.keySet()) {
+            // The cold check and removal are atomic with holdingOpened for the same key
+            tickers.computeIfPresent(ticker, (t, heat) -> {
+                heat.readScore = heat.readScore * decayFactor + heat.recentReads.sumThenReset();
+                return heat.holders.get() == 0 && heat.readScore < 0.01 ? null : heat;
+            });
+        }
+    }
+
+    /** Tickers ordered from hottest to coldest. */
+    public List<String> hottest() {
+        return tickers.entrySet().stream()
+                .sorted(Comparator.comparingDouble(
+                        (Map.Entry<String, Heat> entry) -> entry.getValue().weight(holderWeight)).reversed())
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public int size() {
+        return tickers.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("stock.hotset.size", this, HotTickerSet::size)
+                .register(registry);
+    }
+}
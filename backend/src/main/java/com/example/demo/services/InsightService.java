@@ -12,8 +12,8 @@ import java.util.*;
 public class InsightService {
     private final PortfolioService portfolioService;
 
-    public Map<String, Object> getInsights(Long portfolioId, String username) {
-        PortfolioResponse portfolio = portfolioService.getPortfolioDetails(portfolioId, username);
+    public Map<String, Object> getInsights(Long portfolioId, Long userId) {
+        PortfolioResponse portfolio = portfolioService.getPortfolioDetails(portfolioId, userId);
 
         int assetCount = portfolio.getAssets().size();
         double totalValue = portfolio.getTotalValue();
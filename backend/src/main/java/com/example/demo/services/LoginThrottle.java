@@ -0,0 +1,63 @@
+package com.example.demo.services;
+
+import com.example.demo.exception.LoginThrottledException;
+import com.example.demo.util.StripedRateLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Attempt budgets for sign-in and registration, checked before any password
+ * is hashed so refused attempts cost no CPU. Budgets are per username and
+ * per client address, each a striped set of token buckets.
+ */
+@Component
+public class LoginThrottle implements MeterBinder {
+    private final StripedRateLimiter byUsername;
+    private final StripedRateLimiter byAddress;
+
+    private final AtomicLong usernameRejections = new AtomicLong();
+    private final AtomicLong addressRejections = new AtomicLong();
+
+    public LoginThrottle(
+            @Value("${auth.throttle.stripes:4096}") int stripes,
+            @Value("${auth.throttle.per-username:5}") int perUsername,
+            @Value("${auth.throttle.per-address:30}") int perAddress,
+            @Value("${auth.throttle.period:60000}") long periodMillis) {
+        long periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMillis);
+        this.byUsername = new StripedRateLimiter(stripes, perUsername, periodNanos);
+        this.byAddress = new StripedRateLimiter(stripes, perAddress, periodNanos);
+    }
+
+    public void checkLogin(String username, String clientAddress) {
+        checkAddress(clientAddress);
+        if (!byUsername.tryAcquire(username)) {
+            usernameRejections.incrementAndGet();
+            throw new LoginThrottledException("Too many sign-in attempts for this account, try again later");
+        }
+    }
+
+    public void checkRegistration(String clientAddress) {
+        checkAddress(clientAddress);
+    }
+
+    private void checkAddress(String clientAddress) {
+        if (!byAddress.tryAcquire(clientAddress)) {
+            addressRejections.incrementAndGet();
+            throw new LoginThrottledException("Too many attempts from this address, try again later");
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.throttle.rejections", usernameRejections, AtomicLong::get)
+                .tag("key", "username").register(registry);
+        FunctionCounter.builder("auth.throttle.rejections", addressRejections, AtomicLong::get)
+                .tag("key", "address").register(registry);
+    }
+}
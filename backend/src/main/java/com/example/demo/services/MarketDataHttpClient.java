@@ -0,0 +1,96 @@
+package com.example.demo.services;
+
+import com.example.demo.exception.UpstreamUnavailableException;
+import com.example.demo.util.AsyncSemaphore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shared outbound client for market data providers.
+ *
+ * Wraps one {@link HttpClient}, which keeps connections alive and pooled per
+ * host and negotiates HTTP/2 where the server supports it. Requests are
+ * asynchronous and capped per host: callers over the cap queue on an
+ * {@link AsyncSemaphore} without holding a thread. Response bodies are
+ * handed to the caller's parser as a stream on a virtual thread.
+ */
+@Component
+public class MarketDataHttpClient implements MeterBinder {
+
+    @FunctionalInterface
+    public interface BodyParser<T> {
+        T parse(InputStream body) throws IOException;
+    }
+
+    private final HttpClient client;
+    private final Duration readTimeout;
+    private final int maxPerHost;
+    private final Map<String, AsyncSemaphore> hostLimits = new ConcurrentHashMap<>();
+    private final ExecutorService parseExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public MarketDataHttpClient(
+            @Value("${stock.http.connect-timeout:2000}") long connectTimeoutMillis,
+            @Value("${stock.http.read-timeout:5000}") long readTimeoutMillis,
+            @Value("${stock.http.max-per-host:8}") int maxPerHost) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.readTimeout = Duration.ofMillis(readTimeoutMillis);
+        this.maxPerHost = maxPerHost;
+    }
+
+    public <T> CompletableFuture<T> getAsync(URI uri, BodyParser<T> parser) {
+        AsyncSemaphore limit = hostLimits.computeIfAbsent(uri.getHost(), host -> new AsyncSemaphore(maxPerHost));
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(readTimeout)
+                .GET()
+                .build();
+
+        return limit.acquire()
+                .thenCompose(permit -> client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream()))
+                .thenApplyAsync(response -> {
+                    try (InputStream body = response.body()) {
+                        int status = response.statusCode();
+                        if (status >= 500 || status == 429) {
+                            throw new UpstreamUnavailableException("HTTP " + status + " from " + uri.getHost());
+                        }
+                        if (status / 100 != 2) {
+                            throw new RuntimeException("HTTP " + status + " from " + uri.getHost());
+                        }
+                        return parser.parse(body);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, parseExecutor)
+                .whenComplete((result, failure) -> limit.release());
+    }
+
+    private int queued() {
+        return hostLimits.values().stream().mapToInt(AsyncSemaphore::queued).sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("stock.http.queued", this, MarketDataHttpClient::queued)
+                .register(registry);
+    }
+}
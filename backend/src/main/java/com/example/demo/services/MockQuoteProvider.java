@@ -0,0 +1,56 @@
+package com.example.demo.services;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Deterministic in-memory prices. Selected with {@code stock.quote.provider=mock}
+ * and also used by {@link StockService} as the fallback when the active
+ * provider is unavailable.
+ */
+@Component
+@ConditionalOnProperty(name = "stock.quote.provider", havingValue = "mock")
+public class MockQuoteProvider implements QuoteProvider {
+    private static final Logger logger = Logger.getLogger(MockQuoteProvider.class.getName());
+
+    private static final Map<String, Double> MOCK_PRICES = new HashMap<>();
+
+    static {
+        MOCK_PRICES.put("IBM", 288.37);
+        MOCK_PRICES.put("AAPL", 150.25);
+        MOCK_PRICES.put("MSFT", 300.75);
+        MOCK_PRICES.put("GOOGL", 2800.50);
+        MOCK_PRICES.put("TSLA", 250.00);
+        MOCK_PRICES.put("AMZN", 3200.00);
+        MOCK_PRICES.put("META", 350.75);
+        MOCK_PRICES.put("VTI", 220.50);
+        MOCK_PRICES.put("SPY", 450.25);
+    }
+
+    @Override
+    public String name() {
+        return "mock";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public double fetchPrice(String ticker) {
+        if (MOCK_PRICES.containsKey(ticker)) {
+            Double price = MOCK_PRICES.get(ticker);
+            logger.fine("Returning mock price for " + ticker + ": $" + price);
+            return price;
+        }
+
+        // For unknown tickers, return a default price
+        logger.fine("Unknown ticker " + ticker + ", returning default price");
+        return 100.0;
+    }
+}
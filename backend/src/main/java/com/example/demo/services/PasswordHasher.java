@@ -0,0 +1,155 @@
+package com.example.demo.services;
+
+import com.example.demo.exception.LoginThrottledException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs BCrypt off the request threads on a pool sized to the cores.
+ *
+ * Hashing is pure CPU, so more threads than cores only adds contention; a
+ * burst of sign-ins queues behind the pool instead of starving every other
+ * request. The queue is bounded and a full queue rejects immediately with
+ * {@link LoginThrottledException} rather than letting callers pile up.
+ */
+@Component
+public class PasswordHasher implements MeterBinder {
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private enum Operation {
+        ENCODE, MATCH
+    }
+
+    private final PasswordEncoder encoder;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final Map<Operation, LongAdder> hashCount = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> hashNanos = new EnumMap<>(Operation.class);
+
+    public PasswordHasher(
+            PasswordEncoder encoder,
+            @Value("${auth.bcrypt.strength:10}") int strength,
+            @Value("${auth.hashing.threads:0}") int threads,
+            @Value("${auth.hashing.queue-capacity:64}") int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Hashing queue capacity must be positive");
+        }
+        this.encoder = encoder;
+        this.strength = strength;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hasher-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        for (Operation operation : Operation.values()) {
+            hashCount.put(operation, new LongAdder());
+            hashNanos.put(operation, new LongAdder());
+        }
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return run(Operation.ENCODE, () -> encoder.encode(rawPassword));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(Operation.MATCH, () -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    /** True when the stored hash was made with a different cost than the configured one. */
+    public boolean needsRehash(String encodedPassword) {
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return !matcher.find() || Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    private <T> T run(Operation operation, Callable<T> work) {
+        long enqueued = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long started = System.nanoTime();
+                waitCount.increment();
+                waitNanos.add(started - enqueued);
+                try {
+                    return work.call();
+                } finally {
+                    hashCount.get(operation).increment();
+                    hashNanos.get(operation).add(System.nanoTime() - started);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new LoginThrottledException("Too many sign-ins in progress, try again shortly");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Password check interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Operation operation : Operation.values()) {
+            FunctionTimer.builder("auth.password.hash", operation,
+                    o -> hashCount.get(o).sum(),
+                    o -> hashNanos.get(o).sum(),
+                    TimeUnit.NANOSECONDS)
+                    .tag("operation", operation.name().toLowerCase())
+                    .register(registry);
+        }
+        FunctionTimer.builder("auth.password.queue.wait", this,
+                h -> h.waitCount.sum(),
+                h -> h.waitNanos.sum(),
+                TimeUnit.NANOSECONDS)
+                .register(registry);
+        Gauge.builder("auth.password.queue.depth", this, PasswordHasher::queueDepth)
+                .register(registry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(registry);
+        FunctionCounter.builder("auth.password.rejected", rejected, AtomicLong::get)
+                .description("Hashing requests refused because the queue was full")
+                .register(registry);
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.HoldingRow;
+import com.example.demo.dto.RevaluationReport;
+import com.example.demo.entity.PortfolioSnapshot;
+import com.example.demo.entity.RevaluationRun;
+import com.example.demo.repo.PortfolioAssetRepository;
+import com.example.demo.repo.PortfolioRepository;
+import com.example.demo.repo.PortfolioSnapshotRepository;
+import com.example.demo.repo.RevaluationRunRepository;
+import com.example.demo.util.FixedPoint;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Nightly end-of-day snapshot of every portfolio's value.
+ *
+ * Distinct tickers are priced once up front. Holdings are then streamed in
+ * portfolio order through a forward-only cursor and cut into chunks on
+ * portfolio boundaries. Each chunk is valued in parallel partitions on a
+ * fixed pool sized to the cores, and its snapshots are batch-inserted in the
+ * same transaction that advances the {@link RevaluationRun} checkpoint, so
+ * an interrupted run resumes where it stopped.
+ */
+@Service
+public class PortfolioRevaluationJob implements MeterBinder {
+    private static final Logger logger = Logger.getLogger(PortfolioRevaluationJob.class.getName());
+
+    private final PortfolioRepository portfolioRepository;
+    private final PortfolioAssetRepository assetRepository;
+    private final PortfolioSnapshotRepository snapshotRepository;
+    private final RevaluationRunRepository runRepository;
+    private final StockService stockService;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final int chunkSize;
+    private final int parallelism;
+
+    // Valuation is CPU-bound, so platform threads, one per core
+    private final ExecutorService valuationExecutor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile RevaluationReport lastReport;
+
+    public PortfolioRevaluationJob(
+            PortfolioRepository portfolioRepository,
+            PortfolioAssetRepository assetRepository,
+            PortfolioSnapshotRepository snapshotRepository,
+            RevaluationRunRepository runRepository,
+            StockService stockService,
+            PlatformTransactionManager transactionManager,
+            @Value("${portfolio.revaluation.chunk-size:5000}") int chunkSize,
+            @Value("${portfolio.revaluation.parallelism:0}") int parallelism) {
+        this.portfolioRepository = portfolioRepository;
+        this.assetRepository = assetRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.runRepository = runRepository;
+        this.stockService = stockService;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        // Chunks commit on their own connection while the cursor stays open
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.valuationExecutor = Executors.newFixedThreadPool(this.parallelism);
+    }
+
+    @Scheduled(cron = "${portfolio.revaluation.cron:0 30 2 * * *}")
+    public void nightly() {
+        revalue(LocalDate.now());
+    }
+
+    /** Snapshots every portfolio for {@code date}, resuming from the checkpoint of an earlier attempt. */
+    public RevaluationReport revalue(LocalDate date) {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("Revaluation is already running");
+        }
+        try {
+            RevaluationReport report = run(date);
+            lastReport = report;
+            logger.info(String.format("Revaluation for %s: %d portfolios, %d holdings, %d tickers in %d ms"
+                    + " (%.0f holdings/s)%s", date, report.portfolios(), report.holdings(), report.tickersPriced(),
+                    report.elapsedMillis(), report.holdingsPerSecond(), report.resumed() ? ", resumed" : ""));
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public RevaluationReport lastReport() {
+        return lastReport;
+    }
+
+    private RevaluationReport run(LocalDate date) {
+        long started = System.nanoTime();
+        RevaluationRun run = runRepository.findById(date).orElseGet(() -> {
+            RevaluationRun fresh = new RevaluationRun();
+            fresh.setSnapshotDate(date);
+            return fresh;
+        });
+        if (run.isCompleted()) {
+            return new RevaluationReport(date, 0, 0, 0, 0, false);
+        }
+        boolean resumed = run.getLastPortfolioId() > 0;
+
+        // Each distinct ticker is priced once for the whole run, before the cursor opens
+        Map<String, Long> prices = new HashMap<>();
+        stockService.getCurrentPrices(assetRepository.findDistinctTickers()).forEach((ticker, quote) -> {
+            if (quote.hasPrice()) {
+                prices.put(ticker, FixedPoint.toMicros(quote.price()));
+            }
+        });
+
+        long portfoliosBefore = run.getPortfoliosValued();
+        long holdingsBefore = run.getHoldingsScanned();
+        readTransaction.executeWithoutResult(status -> {
+            try (Stream<HoldingRow> holdings = portfolioRepository.streamHoldingsAfter(run.getLastPortfolioId())) {
+                List<HoldingRow> chunk = new ArrayList<>();
+                Iterator<HoldingRow> rows = holdings.iterator();
+                while (rows.hasNext()) {
+                    HoldingRow row = rows.next();
+                    // Cut only between portfolios so a checkpoint never splits one
+                    if (chunk.size() >= chunkSize && !row.portfolioId().equals(chunk.get(chunk.size() - 1).portfolioId())) {
+                        commitChunk(run, chunk, prices);
+                        chunk = new ArrayList<>();
+                    }
+                    chunk.add(row);
+                }
+                if (!chunk.isEmpty()) {
+                    commitChunk(run, chunk, prices);
+                }
+            }
+        });
+
+        run.setCompleted(true);
+        run.setFinishedAt(LocalDateTime.now());
+        writeTransaction.executeWithoutResult(status -> runRepository.save(run));
+
+        return new RevaluationReport(date, run.getPortfoliosValued() - portfoliosBefore,
+                run.getHoldingsScanned() - holdingsBefore, prices.size(),
+                (System.nanoTime() - started) / 1_000_000, resumed);
+    }
+
+    private void commitChunk(RevaluationRun run, List<HoldingRow> chunk, Map<String, Long> prices) {
+        List<PortfolioSnapshot> snapshots = valueInParallel(chunk, prices, run.getSnapshotDate());
+        long holdings = chunk.stream().filter(row -> row.ticker() != null).count();
+
+        run.setLastPortfolioId(chunk.get(chunk.size() - 1).portfolioId());
+        run.setPortfoliosValued(run.getPortfoliosValued() + snapshots.size());
+        run.setHoldingsScanned(run.getHoldingsScanned() + holdings);
+        writeTransaction.executeWithoutResult(status -> {
+            snapshotRepository.saveAll(snapshots);
+            runRepository.save(run);
+        });
+    }
+
+    /** Splits the chunk into contiguous runs of whole portfolios and values each on its own core. */
+    private List<PortfolioSnapshot> valueInParallel(List<HoldingRow> chunk, Map<String, Long> prices, LocalDate date) {
+        List<Integer> portfolioStarts = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (i == 0 || !chunk.get(i).portfolioId().equals(chunk.get(i - 1).portfolioId())) {
+                portfolioStarts.add(i);
+            }
+        }
+        portfolioStarts.add(chunk.size());
+
+        int portfolios = portfolioStarts.size() - 1;
+        int partitions = Math.min(parallelism, portfolios);
+        List<Future<List<PortfolioSnapshot>>> futures = new ArrayList<>(partitions);
+        for (int p = 0; p < partitions; p++) {
+            int first = portfolioStarts.get(portfolios * p / partitions);
+            int last = portfolioStarts.get(portfolios * (p + 1) / partitions);
+            futures.add(valuationExecutor.submit(() -> value(chunk.subList(first, last), prices, date)));
+        }
+
+        List<PortfolioSnapshot> snapshots = new ArrayList<>(portfolios);
+        try {
+            for (Future<List<PortfolioSnapshot>> future : futures) {
+                snapshots.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Revaluation interrupted");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Revaluation failed: " + e.getCause().getMessage());
+        }
+        return snapshots;
+    }
+
+    private static List<PortfolioSnapshot> value(List<HoldingRow> rows, Map<String, Long> prices, LocalDate date) {
+        List<PortfolioSnapshot> snapshots = new ArrayList<>();
+        PortfolioSnapshot current = null;
+        for (HoldingRow row : rows) {
+            if (current == null || !current.getPortfolioId().equals(row.portfolioId())) {
+                current = new PortfolioSnapshot();
+                current.setPortfolioId(row.portfolioId());
+                current.setSnapshotDate(date);
+                snapshots.add(current);
+            }
+            if (row.ticker() == null) {
+                continue;
+            }
+            // A ticker that could not be priced tonight keeps its last stored price
+            Long price = prices.get(row.ticker().toUpperCase());
+            long priceMicros = price != null ? price : row.currentPriceMicros();
+            current.setTotalValueMicros(Math.addExact(current.getTotalValueMicros(),
+                    FixedPoint.multiply(row.quantityMicros(), priceMicros)));
+            current.setAssetCount(current.getAssetCount() + 1);
+        }
+        return snapshots;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        valuationExecutor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("portfolio.revaluation.last.duration", this,
+                        job -> job.lastReport == null ? 0 : job.lastReport.elapsedMillis() / 1000.0)
+                .description("Duration of the last revaluation run")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("portfolio.revaluation.last.throughput", this,
+                        job -> job.lastReport == null ? 0 : job.lastReport.holdingsPerSecond())
+                .description("Holdings valued per second in the last revaluation run")
+                .register(registry);
+    }
+}
@@ -1,136 +1,407 @@
 package com.example.demo.services;
 
+import com.example.demo.dto.AssetRow;
+import com.example.demo.dto.CostBasisMethod;
+import com.example.demo.dto.LedgerTransactionRequest;
+import com.example.demo.dto.PortfolioPageResponse;
 import com.example.demo.dto.PortfolioResponse;
+import com.example.demo.dto.PortfolioRow;
+import com.example.demo.dto.PortfolioSummaryResponse;
+import com.example.demo.dto.PortfolioVersion;
+import com.example.demo.dto.PositionResponse;
+import com.example.demo.dto.PriceResolution;
+import com.example.demo.dto.Quote;
+import com.example.demo.dto.TransactionType;
+import com.example.demo.dto.ValueHistoryResponse;
 import com.example.demo.entity.Portfolio;
 import com.example.demo.entity.PortfolioAsset;
-import com.example.demo.entity.User;
+import com.example.demo.entity.PortfolioSnapshot;
+import com.example.demo.event.HoldingChangedEvent;
 import com.example.demo.repo.PortfolioAssetRepository;
 import com.example.demo.repo.PortfolioRepository;
+import com.example.demo.repo.PortfolioSnapshotRepository;
 import com.example.demo.repo.UserRepository;
+import com.example.demo.util.FixedPoint;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class PortfolioService {
+    private static final int MAX_PAGE_SIZE = 200;
+    // Quantities at or below this are treated as fully sold
+    private static final double EPSILON = 1e-9;
+
     private final PortfolioRepository portfolioRepository;
     private final PortfolioAssetRepository assetRepository;
     private final StockService stockService;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PortfolioValuations valuations;
+    private final TransactionTemplate transactionTemplate;
+    private final PriceHistoryStore priceHistory;
+    private final PortfolioSnapshotRepository snapshotRepository;
+    private final TransactionLedger ledger;
+    private final QuoteCache quoteCache;
 
     @Transactional
-    public PortfolioResponse createPortfolio(String username, String name) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found with username: " + username));
-
+    public PortfolioResponse createPortfolio(Long userId, String name, CostBasisMethod costBasisMethod) {
         Portfolio portfolio = new Portfolio();
         portfolio.setName(name);
-        portfolio.setUser(user);
+        if (costBasisMethod != null) {
+            portfolio.setCostBasisMethod(costBasisMethod);
+        }
+        // The authenticated principal already proved the user exists; only its id is needed
+        portfolio.setUser(userRepository.getReferenceById(userId));
         portfolio = portfolioRepository.save(portfolio);
 
         return PortfolioResponse.fromEntity(portfolio);
     }
 
-    public List<PortfolioResponse> getUserPortfolios(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found with username: " + username));
+    /**
+     * Entity tag for {@link #getUserPortfolios}: which portfolios the user has,
+     * their revisions and price epochs, and the quote freshness window. One
+     * index-only query and no price lookups, so unchanged lists are cheap to
+     * revalidate. The tag is weak: holdings and prices are the same whenever
+     * it matches, but an asset's price status can age within a window.
+     */
+    public String getUserPortfoliosETag(Long userId) {
+        List<PortfolioVersion> versions = portfolioRepository.findVersionsByUserId(userId);
+        long hash = 0;
+        for (PortfolioVersion portfolio : versions) {
+            hash = 31 * (31 * (31 * hash + portfolio.id()) + portfolio.version())
+                    + valuations.priceEpoch(portfolio.id());
+        }
+        return "W/\"u" + userId + "-" + versions.size() + "-" + Long.toHexString(hash) + "-"
+                + quoteCache.freshnessWindow(System.currentTimeMillis()) + "\"";
+    }
 
-        List<Portfolio> portfolios = portfolioRepository.findByUserId(user.getId());
+    public List<PortfolioResponse> getUserPortfolios(Long userId) {
+        // Two statements regardless of portfolio count: the portfolios, then all of their assets
+        List<PortfolioRow> portfolios = portfolioRepository.findRowsByUserId(userId);
+        if (portfolios.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<AssetRow>> assetsByPortfolio = assetRepository.findRowsByPortfolioIdIn(
+                portfolios.stream().map(PortfolioRow::id).toList()).stream()
+                .collect(Collectors.groupingBy(AssetRow::portfolioId));
+
+        // Price every distinct ticker across all portfolios in one batch
+        Map<String, Quote> quotes = stockService.getCurrentPrices(assetsByPortfolio.values().stream()
+                .flatMap(List::stream)
+                .map(AssetRow::ticker)
+                .collect(Collectors.toSet()));
 
         return portfolios.stream()
-                .map(portfolio -> {
-                    // Fetch current prices for all assets
-                    for (PortfolioAsset asset : portfolio.getAssets()) {
-                        try {
-                            Double price = stockService.getCurrentPrice(asset.getTicker());
-                            asset.setCurrentPrice(price);
-                        } catch (Exception e) {
-                            asset.setCurrentPrice(0.0);
-                        }
-                    }
-                    return PortfolioResponse.fromEntity(portfolio);
-                })
+                .map(portfolio -> PortfolioResponse.fromRows(portfolio,
+                        assetsByPortfolio.getOrDefault(portfolio.id(), List.of()), quotes))
                 .collect(Collectors.toList());
     }
 
-    @Transactional
-    public void addAsset(Long portfolioId, String ticker, Double quantity, String username) {
-        Portfolio portfolio = portfolioRepository.findById(portfolioId)
-                .orElseThrow(() -> new RuntimeException("Portfolio not found"));
+    /**
+     * Keyset-paginated summaries: no asset rows and no quote lookups. Totals
+     * and asset counts come from the incrementally maintained valuations.
+     */
+    public PortfolioPageResponse getPortfolioSummaries(Long userId, Long after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // One extra row tells whether another page follows
+        List<PortfolioRow> rows = portfolioRepository.findPageByUserId(userId, after == null ? 0L : after,
+                Limit.of(pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<PortfolioRow> page = hasMore ? rows.subList(0, pageSize) : rows;
 
-        // Check if user owns this portfolio
-        if (!portfolio.getUser().getUsername().equals(username)) {
-            throw new RuntimeException("Access denied: Portfolio does not belong to user");
+        List<PortfolioSummaryResponse> items = page.stream().map(row -> {
+            PortfolioValuations.Valuation valuation = valuations.get(row.id());
+            PortfolioSummaryResponse summary = new PortfolioSummaryResponse();
+            summary.setId(row.id());
+            summary.setName(row.name());
+            summary.setCreatedAt(row.createdAt());
+            summary.setAssetCount(valuation.assetCount());
+            summary.setTotalValue(valuation.totalValue());
+            return summary;
+        }).collect(Collectors.toList());
+
+        return new PortfolioPageResponse(items, hasMore ? page.get(page.size() - 1).id() : null);
+    }
+
+    /**
+     * Adds {@code quantity} of a ticker to a portfolio, opening the holding if
+     * needed. The price is fetched before any transaction starts; the write is
+     * an atomic increment, and the unique (portfolio_id, ticker) index turns a
+     * lost race to open the same holding into a retry of the increment.
+     */
+    public void addAsset(Long portfolioId, String ticker, Double quantity, Long userId) {
+        String normalizedTicker = normalizeTicker(ticker);
+
+        // Ownership is part of the predicate: other users' portfolios are simply not found
+        if (!portfolioRepository.existsByIdAndUserId(portfolioId, userId)) {
+            throw new RuntimeException("Portfolio not found");
         }
 
+        buy(portfolioId, normalizedTicker, FixedPoint.toMicros(quantity),
+                FixedPoint.toMicros(fetchPrice(normalizedTicker)));
+    }
+
+    private double fetchPrice(String ticker) {
         try {
-            Double currentPrice = stockService.getCurrentPrice(ticker);
-
-            // Check if asset already exists
-            Optional<PortfolioAsset> existingAsset = assetRepository.findByPortfolioIdAndTicker(portfolioId, ticker);
-
-            if (existingAsset.isPresent()) {
-                // Update existing asset quantity
-                PortfolioAsset asset = existingAsset.get();
-                asset.setQuantity(asset.getQuantity() + quantity);
-                asset.setCurrentPrice(currentPrice); // Update to latest price
-                assetRepository.save(asset);
-            } else {
-                // Create new asset
-                PortfolioAsset asset = new PortfolioAsset();
-                asset.setPortfolio(portfolio);
-                asset.setTicker(ticker.toUpperCase());
-                asset.setQuantity(quantity);
-                asset.setCurrentPrice(currentPrice);
-
-                portfolio.getAssets().add(asset);
-                portfolioRepository.save(portfolio);
-            }
+            return stockService.getCurrentPrice(ticker);
         } catch (Exception e) {
             throw new RuntimeException("Failed to fetch stock price for " + ticker + ": " + e.getMessage());
         }
     }
 
-    @Transactional
-    public void removeAsset(Long portfolioId, String ticker, String username) {
-        Portfolio portfolio = portfolioRepository.findById(portfolioId)
+    private void buy(Long portfolioId, String ticker, long quantityMicros, long priceMicros) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    upsertAsset(portfolioId, ticker, quantityMicros, priceMicros, true));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request opened the holding first: the row exists now, so increment it
+            transactionTemplate.executeWithoutResult(status ->
+                    upsertAsset(portfolioId, ticker, quantityMicros, priceMicros, false));
+        }
+    }
+
+    private void upsertAsset(Long portfolioId, String ticker, long quantityMicros, long priceMicros,
+            boolean mayInsert) {
+        portfolioRepository.bumpVersion(portfolioId);
+        HoldingChangedEvent.Type type;
+        if (assetRepository.incrementQuantity(portfolioId, ticker, quantityMicros, priceMicros) > 0) {
+            type = HoldingChangedEvent.Type.UPDATED;
+        } else if (mayInsert) {
+            PortfolioAsset asset = new PortfolioAsset();
+            asset.setPortfolio(portfolioRepository.getReferenceById(portfolioId));
+            asset.setTicker(ticker);
+            asset.setQuantityMicros(quantityMicros);
+            asset.setCurrentPriceMicros(priceMicros);
+            // Flush so a unique index violation surfaces here rather than at commit
+            assetRepository.saveAndFlush(asset);
+            type = HoldingChangedEvent.Type.OPENED;
+        } else {
+            throw new RuntimeException("Failed to add " + ticker + " to portfolio");
+        }
+        ledger.append(portfolioId, ticker, TransactionType.BUY, FixedPoint.toDouble(quantityMicros),
+                FixedPoint.toDouble(priceMicros));
+        eventPublisher.publishEvent(new HoldingChangedEvent(portfolioId, ticker, type, quantityMicros, priceMicros));
+    }
+
+    /**
+     * Closes a holding, recorded in the ledger as a sale of everything at the
+     * current quote. The price is fetched before the transaction starts, as
+     * for any sale; the holding is then read and deleted under the portfolio
+     * row lock.
+     */
+    public void removeAsset(Long portfolioId, String ticker, Long userId) {
+        String normalizedTicker = normalizeTicker(ticker);
+        if (assetRepository.findOwnedAsset(portfolioId, normalizedTicker, userId).isEmpty()) {
+            throw new RuntimeException("Asset not found in portfolio");
+        }
+        long priceMicros = FixedPoint.toMicros(fetchPrice(normalizedTicker));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            portfolioRepository.bumpVersion(portfolioId);
+            PortfolioAsset asset = assetRepository.findOwnedAsset(portfolioId, normalizedTicker, userId)
+                    .orElseThrow(() -> new RuntimeException("Asset not found in portfolio"));
+            assetRepository.delete(asset);
+            ledger.append(portfolioId, asset.getTicker(), TransactionType.SELL,
+                    FixedPoint.toDouble(asset.getQuantityMicros()), FixedPoint.toDouble(priceMicros));
+            eventPublisher.publishEvent(new HoldingChangedEvent(portfolioId, asset.getTicker(),
+                    HoldingChangedEvent.Type.CLOSED, -asset.getQuantityMicros(), priceMicros));
+        });
+    }
+
+    /**
+     * Records a ledger entry and applies it to the holding in the same
+     * transaction. Returns the resulting position for the ticker.
+     */
+    public PositionResponse recordTransaction(Long portfolioId, Long userId, LedgerTransactionRequest request) {
+        CostBasisMethod method = portfolioRepository.findCostBasisMethodByIdAndUserId(portfolioId, userId)
                 .orElseThrow(() -> new RuntimeException("Portfolio not found"));
+        String ticker = normalizeTicker(request.getTicker());
+        TransactionType type = request.getType();
+        if (type != TransactionType.DIVIDEND && request.getQuantity() == null) {
+            throw new RuntimeException("Quantity is required for " + type);
+        }
 
-        // Check if user owns this portfolio
-        if (!portfolio.getUser().getUsername().equals(username)) {
-            throw new RuntimeException("Access denied: Portfolio does not belong to user");
+        switch (type) {
+            case BUY -> buy(portfolioId, ticker, FixedPoint.toMicros(request.getQuantity()),
+                    FixedPoint.toMicros(request.getPrice() != null ? request.getPrice() : fetchPrice(ticker)));
+            case SELL -> {
+                long priceMicros = FixedPoint.toMicros(
+                        request.getPrice() != null ? request.getPrice() : fetchPrice(ticker));
+                transactionTemplate.executeWithoutResult(status ->
+                        sell(portfolioId, ticker, FixedPoint.toMicros(request.getQuantity()), priceMicros));
+            }
+            case SPLIT -> {
+                double ratio = request.getQuantity();
+                // Checked before anything is written: a bad ratio would corrupt the holding and the ledger for good
+                if (!Double.isFinite(ratio) || ratio <= 0) {
+                    throw new RuntimeException("Split ratio must be a positive number");
+                }
+                transactionTemplate.executeWithoutResult(status -> split(portfolioId, ticker, ratio, userId));
+            }
+            case DIVIDEND -> {
+                if (request.getPrice() == null) {
+                    throw new RuntimeException("Dividend per share is required");
+                }
+                transactionTemplate.executeWithoutResult(status ->
+                        dividend(portfolioId, ticker, request.getPrice(), userId));
+            }
         }
 
-        PortfolioAsset asset = assetRepository.findByPortfolioIdAndTicker(portfolioId, ticker)
+        TaxLotPosition position = ledger.positions(portfolioId, method).get(ticker);
+        return toPositionResponse(ticker, position, stockService.getCurrentPrices(List.of(ticker)).get(ticker));
+    }
+
+    private void sell(Long portfolioId, String ticker, long quantityMicros, long priceMicros) {
+        portfolioRepository.bumpVersion(portfolioId);
+        if (assetRepository.decrementQuantity(portfolioId, ticker, quantityMicros, priceMicros) == 0) {
+            throw new RuntimeException("Cannot sell more " + ticker + " than the portfolio holds");
+        }
+        boolean closed = assetRepository.deleteEmptyHolding(portfolioId, ticker) > 0;
+        ledger.append(portfolioId, ticker, TransactionType.SELL, FixedPoint.toDouble(quantityMicros),
+                FixedPoint.toDouble(priceMicros));
+        eventPublisher.publishEvent(new HoldingChangedEvent(portfolioId, ticker,
+                closed ? HoldingChangedEvent.Type.CLOSED : HoldingChangedEvent.Type.UPDATED,
+                -quantityMicros, priceMicros));
+    }
+
+    private void split(Long portfolioId, String ticker, double ratio, Long userId) {
+        // Lock the portfolio before reading, so no buy or sell lands between the read and the write
+        portfolioRepository.bumpVersion(portfolioId);
+        PortfolioAsset asset = assetRepository.findOwnedAsset(portfolioId, ticker, userId)
                 .orElseThrow(() -> new RuntimeException("Asset not found in portfolio"));
+        long before = asset.getQuantityMicros();
+        long after = FixedPoint.scale(before, ratio);
+        long priceMicros = FixedPoint.scale(asset.getCurrentPriceMicros(), 1 / ratio);
+        if (assetRepository.replaceQuantity(portfolioId, ticker, before, after, priceMicros) == 0) {
+            throw new RuntimeException("Holding of " + ticker + " changed during the split, try again");
+        }
+        ledger.append(portfolioId, ticker, TransactionType.SPLIT, ratio, 0.0);
+        eventPublisher.publishEvent(new HoldingChangedEvent(portfolioId, ticker, HoldingChangedEvent.Type.UPDATED,
+                after - before, priceMicros));
+    }
 
-        assetRepository.delete(asset);
+    private void dividend(Long portfolioId, String ticker, double perShare, Long userId) {
+        PortfolioAsset asset = assetRepository.findOwnedAsset(portfolioId, ticker, userId)
+                .orElseThrow(() -> new RuntimeException("Asset not found in portfolio"));
+        // Paid on the shares held now; stored with the entry so replays never depend on other state
+        ledger.append(portfolioId, ticker, TransactionType.DIVIDEND, FixedPoint.toDouble(asset.getQuantityMicros()),
+                perShare);
     }
 
-    public PortfolioResponse getPortfolioDetails(Long portfolioId, String username) {
-        Portfolio portfolio = portfolioRepository.findById(portfolioId)
+    /** Ledger-derived positions with cost basis and realised/unrealised P&L at current prices. */
+    public List<PositionResponse> getPositions(Long portfolioId, Long userId) {
+        CostBasisMethod method = portfolioRepository.findCostBasisMethodByIdAndUserId(portfolioId, userId)
                 .orElseThrow(() -> new RuntimeException("Portfolio not found"));
 
-        // Check if user owns this portfolio
-        if (!portfolio.getUser().getUsername().equals(username)) {
-            throw new RuntimeException("Access denied: Portfolio does not belong to user");
+        Map<String, TaxLotPosition> positions = ledger.positions(portfolioId, method);
+        Map<String, Quote> quotes = positions.isEmpty() ? Map.of() : stockService.getCurrentPrices(positions.keySet());
+
+        return positions.entrySet().stream()
+                .map(entry -> toPositionResponse(entry.getKey(), entry.getValue(), quotes.get(entry.getKey())))
+                .collect(Collectors.toList());
+    }
+
+    private static PositionResponse toPositionResponse(String ticker, TaxLotPosition position, Quote quote) {
+        PositionResponse response = new PositionResponse();
+        response.setTicker(ticker);
+        response.setMethod(position.method());
+        double quantity = position.quantity();
+        double costBasis = position.costBasis();
+        response.setQuantity(quantity);
+        response.setCostBasis(costBasis);
+        response.setAverageCost(quantity > EPSILON ? costBasis / quantity : 0.0);
+        response.setRealizedPnl(position.realizedPnl());
+        response.setDividends(position.dividends());
+        response.setLots(position.lots());
+        if (quote != null) {
+            response.setPriceStatus(quote.status().name());
+            if (quote.hasPrice()) {
+                response.setCurrentPrice(quote.price());
+                response.setMarketValue(quantity * quote.price());
+                response.setUnrealizedPnl(quantity * quote.price() - costBasis);
+            }
         }
+        return response;
+    }
+
+    /** Entity tag for {@link #getPortfolioDetails}, built the same way as {@link #getUserPortfoliosETag}. */
+    public String getPortfolioETag(Long portfolioId, Long userId) {
+        long version = portfolioRepository.findVersionByIdAndUserId(portfolioId, userId)
+                .orElseThrow(() -> new RuntimeException("Portfolio not found"));
+        return "W/\"p" + portfolioId + "-" + version + "-" + valuations.priceEpoch(portfolioId) + "-"
+                + quoteCache.freshnessWindow(System.currentTimeMillis()) + "\"";
+    }
+
+    public PortfolioResponse getPortfolioDetails(Long portfolioId, Long userId) {
+        PortfolioRow portfolio = portfolioRepository.findRowByIdAndUserId(portfolioId, userId)
+                .orElseThrow(() -> new RuntimeException("Portfolio not found"));
+
+        List<AssetRow> assets = assetRepository.findRowsByPortfolioIdIn(List.of(portfolioId));
 
         // Fetch current prices for all assets
-        for (PortfolioAsset asset : portfolio.getAssets()) {
-            try {
-                Double price = stockService.getCurrentPrice(asset.getTicker());
-                asset.setCurrentPrice(price);
-            } catch (Exception e) {
-                asset.setCurrentPrice(0.0);
-            }
+        Map<String, Quote> quotes = stockService.getCurrentPrices(assets.stream()
+                .map(AssetRow::ticker)
+                .collect(Collectors.toSet()));
+
+        return PortfolioResponse.fromRows(portfolio, assets, quotes);
+    }
+
+    /** Value of the portfolio's current holdings over time, from the recorded price history. */
+    public ValueHistoryResponse getPortfolioHistory(Long portfolioId, Long userId, long from, long to,
+            PriceResolution resolution) {
+        if (!portfolioRepository.existsByIdAndUserId(portfolioId, userId)) {
+            throw new RuntimeException("Portfolio not found");
+        }
+        if (from >= to) {
+            throw new RuntimeException("History range must have from before to");
         }
 
-        return PortfolioResponse.fromEntity(portfolio);
+        Map<String, Double> quantities = assetRepository.findRowsByPortfolioIdIn(List.of(portfolioId)).stream()
+                .collect(Collectors.toMap(AssetRow::ticker, row -> FixedPoint.toDouble(row.quantityMicros()), Double::sum));
+
+        ValueHistoryResponse history = priceHistory.valueHistory(quantities, from, to, resolution);
+        history.setPortfolioId(portfolioId);
+        return history;
+    }
+
+    /** Daily values from the nightly revaluation; timestamps are the start of each snapshot date. */
+    public ValueHistoryResponse getPortfolioSnapshots(Long portfolioId, Long userId, LocalDate from, LocalDate to) {
+        if (!portfolioRepository.existsByIdAndUserId(portfolioId, userId)) {
+            throw new RuntimeException("Portfolio not found");
+        }
+
+        List<PortfolioSnapshot> snapshots = snapshotRepository
+                .findByPortfolioIdAndSnapshotDateBetweenOrderBySnapshotDateAsc(portfolioId, from, to);
+        long[] timestamps = new long[snapshots.size()];
+        double[] values = new double[snapshots.size()];
+        for (int i = 0; i < snapshots.size(); i++) {
+            timestamps[i] = snapshots.get(i).getSnapshotDate().atStartOfDay(ZoneId.systemDefault())
+                    .toInstant().toEpochMilli();
+            values[i] = FixedPoint.toDouble(snapshots.get(i).getTotalValueMicros());
+        }
+
+        ValueHistoryResponse history = new ValueHistoryResponse();
+        history.setPortfolioId(portfolioId);
+        history.setResolution(PriceResolution.DAY);
+        history.setTimestamps(timestamps);
+        history.setValues(values);
+        return history;
+    }
+
+    /** Tickers are stored, looked up and priced in upper case. */
+    private static String normalizeTicker(String ticker) {
+        return ticker.trim().toUpperCase();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,219 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.AssetRow;
+import com.example.demo.event.HoldingChangedEvent;
+import com.example.demo.repo.PortfolioAssetRepository;
+import com.example.demo.util.FixedPoint;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Materialized total value per portfolio, maintained incrementally.
+ *
+ * Holding changes apply a quantity delta to the affected portfolio after
+ * commit. Every price stored in the {@link QuoteCache} is applied through a
+ * ticker to portfolios reverse index, so a tick only touches portfolios that
+ * hold the ticker. Each holding remembers the price it was last valued at,
+ * which keeps totals correct however ticks and holding changes interleave.
+ * Reading a total is a map lookup and never waits on upstream pricing.
+ * Quantities, prices and totals are kept in fixed-point micro-units.
+ *
+ * Each portfolio also records the price epoch at which a tick last changed
+ * one of its prices. Epochs are seeded from the clock so they keep rising
+ * across restarts; together with the portfolio's revision they tell whether
+ * a priced response could have changed without looking at any price.
+ */
+@Component
+// Loads holdings at startup, so legacy quantities must have been moved to micro-units first
+@DependsOn("fixedPointColumnMigration")
+public class PortfolioValuations implements MeterBinder {
+    private static final Logger logger = Logger.getLogger(PortfolioValuations.class.getName());
+
+    /** Point-in-time totals for one portfolio. */
+    public record Valuation(double totalValue, int assetCount, long updatedAt) {
+    }
+
+    private static final class Holding {
+        long quantityMicros;
+        long priceMicros;
+        long valueMicros;
+
+        Holding(long quantityMicros, long priceMicros) {
+            set(quantityMicros, priceMicros);
+        }
+
+        void set(long quantityMicros, long priceMicros) {
+            this.quantityMicros = quantityMicros;
+            this.priceMicros = priceMicros;
+            this.valueMicros = FixedPoint.multiply(quantityMicros, priceMicros);
+        }
+    }
+
+    private static final class PortfolioState {
+        private final Map<String, Holding> holdings = new HashMap<>();
+        // Exact sum of the holdings' values, so incremental updates never drift
+        private long totalValueMicros;
+        private long updatedAt = System.currentTimeMillis();
+        private long priceEpoch;
+
+        PortfolioState(long priceEpoch) {
+            this.priceEpoch = priceEpoch;
+        }
+
+        synchronized void adjust(String ticker, long quantityDeltaMicros, long priceMicros) {
+            Holding holding = holdings.get(ticker);
+            if (holding == null) {
+                holding = new Holding(quantityDeltaMicros, priceMicros);
+                holdings.put(ticker, holding);
+                totalValueMicros += holding.valueMicros;
+            } else {
+                totalValueMicros -= holding.valueMicros;
+                holding.set(holding.quantityMicros + quantityDeltaMicros, priceMicros);
+                totalValueMicros += holding.valueMicros;
+            }
+            updatedAt = System.currentTimeMillis();
+        }
+
+        synchronized void close(String ticker) {
+            Holding holding = holdings.remove(ticker);
+            if (holding != null) {
+                totalValueMicros -= holding.valueMicros;
+                updatedAt = System.currentTimeMillis();
+            }
+        }
+
+        synchronized void reprice(String ticker, long priceMicros, long timestamp, long epoch) {
+            Holding holding = holdings.get(ticker);
+            if (holding != null && holding.priceMicros != priceMicros) {
+                totalValueMicros -= holding.valueMicros;
+                holding.set(holding.quantityMicros, priceMicros);
+                totalValueMicros += holding.valueMicros;
+                updatedAt = Math.max(updatedAt, timestamp);
+                priceEpoch = epoch;
+            }
+        }
+
+        synchronized long priceEpoch() {
+            return priceEpoch;
+        }
+
+        synchronized Valuation snapshot() {
+            return new Valuation(FixedPoint.toDouble(totalValueMicros), holdings.size(), updatedAt);
+        }
+    }
+
+    private final PortfolioAssetRepository assetRepository;
+    private final QuoteCache quoteCache;
+
+    private final Map<Long, PortfolioState> portfolios = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> holders = new ConcurrentHashMap<>();
+    private final AtomicLong ticksApplied = new AtomicLong();
+    // Microseconds since the epoch at startup, then one step per applied tick
+    private final AtomicLong priceEpoch = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    public PortfolioValuations(PortfolioAssetRepository assetRepository, QuoteCache quoteCache) {
+        this.assetRepository = assetRepository;
+        this.quoteCache = quoteCache;
+        quoteCache.subscribe(this::onPrice);
+    }
+
+    // Before scheduling and the web server start: no holding can change between the scan and the
+    // first event, so none is applied twice or missed
+    @PostConstruct
+    public void load() {
+        // The only full scan: afterwards the model is kept current from events and ticks
+        int holdings = 0;
+        for (AssetRow asset : assetRepository.findAllRows()) {
+            String ticker = asset.ticker().toUpperCase();
+            apply(asset.portfolioId(), ticker, asset.quantityMicros(), currentPrice(ticker, asset.currentPriceMicros()));
+            holdings++;
+        }
+        logger.info("Valued " + portfolios.size() + " portfolios from " + holdings + " holdings");
+    }
+
+    /** Current totals for a portfolio; empty portfolios and unknown ids value at zero. */
+    public Valuation get(Long portfolioId) {
+        PortfolioState state = portfolios.get(portfolioId);
+        return state != null ? state.snapshot() : new Valuation(0, 0, 0);
+    }
+
+    /** Epoch of the last tick that changed one of the portfolio's prices; zero for unknown ids. */
+    public long priceEpoch(Long portfolioId) {
+        PortfolioState state = portfolios.get(portfolioId);
+        return state != null ? state.priceEpoch() : 0;
+    }
+
+    @TransactionalEventListener
+    public void onHoldingChanged(HoldingChangedEvent event) {
+        String ticker = event.ticker().toUpperCase();
+        switch (event.type()) {
+            case OPENED, UPDATED -> apply(event.portfolioId(), ticker, event.quantityDeltaMicros(),
+                    currentPrice(ticker, event.priceMicros()));
+            case CLOSED -> close(event.portfolioId(), ticker);
+        }
+    }
+
+    private void apply(Long portfolioId, String ticker, long quantityDeltaMicros, long priceMicros) {
+        portfolios.computeIfAbsent(portfolioId, id -> new PortfolioState(priceEpoch.get()))
+                .adjust(ticker, quantityDeltaMicros, priceMicros);
+        holders.computeIfAbsent(ticker, t -> ConcurrentHashMap.newKeySet()).add(portfolioId);
+    }
+
+    private void close(Long portfolioId, String ticker) {
+        Set<Long> ids = holders.get(ticker);
+        if (ids != null) {
+            ids.remove(portfolioId);
+        }
+        // Emptied portfolios keep their (zero) state so a concurrent open is never lost
+        PortfolioState state = portfolios.get(portfolioId);
+        if (state != null) {
+            state.close(ticker);
+        }
+    }
+
+    private void onPrice(String ticker, double price, long timestamp) {
+        Set<Long> ids = holders.get(ticker);
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        long priceMicros = FixedPoint.toMicros(price);
+        long epoch = priceEpoch.incrementAndGet();
+        for (Long portfolioId : ids) {
+            PortfolioState state = portfolios.get(portfolioId);
+            if (state != null) {
+                state.reprice(ticker, priceMicros, timestamp, epoch);
+            }
+        }
+        ticksApplied.incrementAndGet();
+    }
+
+    private long currentPrice(String ticker, long fallbackMicros) {
+        return quoteCache.lastKnown(ticker)
+                .map(cached -> FixedPoint.toMicros(cached.price()))
+                .orElse(fallbackMicros);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("portfolio.valuations.portfolios", portfolios, Map::size)
+                .register(registry);
+        Gauge.builder("portfolio.valuations.tickers", holders, Map::size)
+                .register(registry);
+        FunctionCounter.builder("portfolio.valuations.ticks.applied", ticksApplied, AtomicLong::get)
+                .description("Price updates that repriced at least one portfolio")
+                .register(registry);
+    }
+}
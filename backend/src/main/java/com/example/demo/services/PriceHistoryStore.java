@@ -0,0 +1,319 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PriceHistoryResponse;
+import com.example.demo.dto.PriceResolution;
+import com.example.demo.dto.ValueHistoryResponse;
+import com.example.demo.entity.PriceCandle;
+import com.example.demo.repo.PriceCandleRepository;
+import com.example.demo.util.CandleSeries;
+import com.example.demo.util.TickLog;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Logger;
+
+/**
+ * Price history for every ticker the application observes.
+ *
+ * Each price stored in the {@link QuoteCache} is appended to a compact raw
+ * {@link TickLog} and folded into 1m, 1h and 1d {@link CandleSeries}, all in
+ * fixed-point micro-units. Each tier has its own retention. Closed hourly and
+ * daily candles are appended to {@code price_candles} in batches and loaded
+ * back at startup, so long-range charts survive restarts; raw ticks and
+ * minute candles are kept in memory only. The persisted history is loaded
+ * before the store subscribes to prices, since a candle series only accepts
+ * buckets later than its last one.
+ */
+@Component
+public class PriceHistoryStore implements MeterBinder {
+    private static final Logger logger = Logger.getLogger(PriceHistoryStore.class.getName());
+    private static final double MICROS = 1_000_000.0;
+
+    private static final class TickerHistory {
+        final TickLog raw = new TickLog();
+        final Map<PriceResolution, CandleSeries> candles = new EnumMap<>(PriceResolution.class);
+        // Buckets at or before these starts are already persisted (loaded at startup)
+        long hourPersistedThrough = Long.MIN_VALUE;
+        long dayPersistedThrough = Long.MIN_VALUE;
+
+        TickerHistory() {
+            for (PriceResolution resolution : List.of(PriceResolution.MINUTE, PriceResolution.HOUR, PriceResolution.DAY)) {
+                candles.put(resolution, new CandleSeries(resolution.bucketMillis()));
+            }
+        }
+    }
+
+    private final QuoteCache quoteCache;
+    private final PriceCandleRepository candleRepository;
+    private final Map<PriceResolution, Long> retentionMillis = new EnumMap<>(PriceResolution.class);
+    private final int maxPoints;
+
+    private final Map<String, TickerHistory> histories = new ConcurrentHashMap<>();
+    private final Queue<PriceCandle> pendingCandles = new ConcurrentLinkedQueue<>();
+
+    public PriceHistoryStore(
+            QuoteCache quoteCache,
+            PriceCandleRepository candleRepository,
+            @Value("${stock.history.retention.raw:86400000}") long rawRetentionMillis,
+            @Value("${stock.history.retention.minute:604800000}") long minuteRetentionMillis,
+            @Value("${stock.history.retention.hour:31536000000}") long hourRetentionMillis,
+            @Value("${stock.history.retention.day:315360000000}") long dayRetentionMillis,
+            @Value("${stock.history.max-points:2000}") int maxPoints) {
+        this.quoteCache = quoteCache;
+        this.candleRepository = candleRepository;
+        retentionMillis.put(PriceResolution.RAW, rawRetentionMillis);
+        retentionMillis.put(PriceResolution.MINUTE, minuteRetentionMillis);
+        retentionMillis.put(PriceResolution.HOUR, hourRetentionMillis);
+        retentionMillis.put(PriceResolution.DAY, dayRetentionMillis);
+        this.maxPoints = maxPoints;
+    }
+
+    // Before scheduling and the web server start, so no live tick can get ahead of the stored history
+    @PostConstruct
+    public void load() {
+        long now = System.currentTimeMillis();
+        int loaded = 0;
+        for (PriceResolution resolution : List.of(PriceResolution.HOUR, PriceResolution.DAY)) {
+            for (PriceCandle candle : candleRepository.findByResolutionAndBucketStartGreaterThanEqualOrderByBucketStartAsc(
+                    resolution, now - retentionMillis.get(resolution))) {
+                TickerHistory history = histories.computeIfAbsent(candle.getTicker(), t -> new TickerHistory());
+                synchronized (history) {
+                    history.candles.get(resolution).append(candle.getBucketStart(), candle.getOpenMicros(),
+                            candle.getHighMicros(), candle.getLowMicros(), candle.getCloseMicros());
+                    if (resolution == PriceResolution.HOUR) {
+                        history.hourPersistedThrough = Math.max(history.hourPersistedThrough, candle.getBucketStart());
+                    } else {
+                        history.dayPersistedThrough = Math.max(history.dayPersistedThrough, candle.getBucketStart());
+                    }
+                }
+                loaded++;
+            }
+        }
+        logger.info("Loaded " + loaded + " price candles for " + histories.size() + " tickers");
+        quoteCache.subscribe(this::record);
+    }
+
+    /** Records one observed price; also the {@link QuoteCache} listener. */
+    public void record(String ticker, double price, long timestamp) {
+        long micros = Math.round(price * MICROS);
+        TickerHistory history = histories.computeIfAbsent(ticker, t -> new TickerHistory());
+        synchronized (history) {
+            history.raw.append(timestamp, micros);
+            history.candles.get(PriceResolution.MINUTE).record(timestamp, micros, null);
+            history.candles.get(PriceResolution.HOUR).record(timestamp, micros, (start, o, h, l, c) -> {
+                if (start > history.hourPersistedThrough) {
+                    pendingCandles.add(candle(ticker, PriceResolution.HOUR, start, o, h, l, c));
+                }
+            });
+            history.candles.get(PriceResolution.DAY).record(timestamp, micros, (start, o, h, l, c) -> {
+                if (start > history.dayPersistedThrough) {
+                    pendingCandles.add(candle(ticker, PriceResolution.DAY, start, o, h, l, c));
+                }
+            });
+        }
+    }
+
+    /**
+     * OHLC history for a ticker within [from, to). Without an explicit
+     * resolution the finest tier that still covers {@code from} and stays
+     * within {@code max-points} is used.
+     */
+    public PriceHistoryResponse query(String ticker, long from, long to, PriceResolution requested) {
+        PriceResolution resolution = requested != null ? requested : chooseResolution(from, to);
+        PriceHistoryResponse response = new PriceHistoryResponse();
+        response.setTicker(ticker);
+        response.setResolution(resolution);
+
+        TickerHistory history = histories.get(ticker);
+        if (history == null) {
+            fill(response, new long[0], new double[0], new double[0], new double[0], new double[0]);
+            return response;
+        }
+
+        synchronized (history) {
+            if (resolution == PriceResolution.RAW) {
+                List<long[]> ticks = new ArrayList<>();
+                history.raw.forEach(from, to, (timestamp, micros) -> ticks.add(new long[] { timestamp, micros }));
+                long[] timestamps = new long[ticks.size()];
+                double[] prices = new double[ticks.size()];
+                for (int i = 0; i < ticks.size(); i++) {
+                    timestamps[i] = ticks.get(i)[0];
+                    prices[i] = ticks.get(i)[1] / MICROS;
+                }
+                fill(response, timestamps, prices, prices, prices, prices);
+                return response;
+            }
+
+            CandleSeries series = history.candles.get(resolution);
+            int[] range = series.range(series.bucketMillis() * Math.floorDiv(from, series.bucketMillis()), to);
+            int count = range[1] - range[0];
+            long[] timestamps = new long[count];
+            double[] open = new double[count];
+            double[] high = new double[count];
+            double[] low = new double[count];
+            double[] close = new double[count];
+            for (int i = 0; i < count; i++) {
+                int index = range[0] + i;
+                timestamps[i] = series.start(index);
+                open[i] = series.open(index) / MICROS;
+                high[i] = series.high(index) / MICROS;
+                low[i] = series.low(index) / MICROS;
+                close[i] = series.close(index) / MICROS;
+            }
+            fill(response, timestamps, open, high, low, close);
+            return response;
+        }
+    }
+
+    /**
+     * Value of fixed holdings over time: at each bucket every ticker is
+     * valued at its latest close so far, so gaps in one ticker's history
+     * carry its last price forward.
+     */
+    public ValueHistoryResponse valueHistory(Map<String, Double> quantities, long from, long to,
+            PriceResolution requested) {
+        PriceResolution resolution = requested != null && requested != PriceResolution.RAW
+                ? requested
+                : chooseResolution(from, to);
+
+        List<PriceHistoryResponse> series = new ArrayList<>();
+        List<Double> seriesQuantities = new ArrayList<>();
+        long[] allStarts = new long[0];
+        for (Map.Entry<String, Double> holding : quantities.entrySet()) {
+            PriceHistoryResponse history = query(holding.getKey(), from, to, resolution);
+            if (history.getTimestamps().length > 0) {
+                series.add(history);
+                seriesQuantities.add(holding.getValue());
+                allStarts = mergeSorted(allStarts, history.getTimestamps());
+            }
+        }
+
+        double[] values = new double[allStarts.length];
+        for (int s = 0; s < series.size(); s++) {
+            long[] timestamps = series.get(s).getTimestamps();
+            double[] close = series.get(s).getClose();
+            double quantity = seriesQuantities.get(s);
+            int cursor = -1;
+            for (int i = 0; i < allStarts.length; i++) {
+                while (cursor + 1 < timestamps.length && timestamps[cursor + 1] <= allStarts[i]) {
+                    cursor++;
+                }
+                if (cursor >= 0) {
+                    values[i] += quantity * close[cursor];
+                }
+            }
+        }
+
+        ValueHistoryResponse response = new ValueHistoryResponse();
+        response.setResolution(resolution);
+        response.setTimestamps(allStarts);
+        response.setValues(values);
+        return response;
+    }
+
+    /** Appends closed candles to the database and applies retention to every tier. */
+    @Scheduled(fixedDelayString = "${stock.history.flush-interval:60000}")
+    public void flush() {
+        List<PriceCandle> batch = new ArrayList<>();
+        PriceCandle candle;
+        while ((candle = pendingCandles.poll()) != null) {
+            batch.add(candle);
+        }
+        if (!batch.isEmpty()) {
+            try {
+                candleRepository.saveAll(batch);
+            } catch (RuntimeException e) {
+                // Retried on the next flush; fresh copies, since the failed ones may carry assigned ids
+                logger.warning("Failed to persist " + batch.size() + " price candles, will retry: " + e.getMessage());
+                for (PriceCandle failed : batch) {
+                    pendingCandles.add(candle(failed.getTicker(), failed.getResolution(), failed.getBucketStart(),
+                            failed.getOpenMicros(), failed.getHighMicros(), failed.getLowMicros(),
+                            failed.getCloseMicros()));
+                }
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        for (TickerHistory history : histories.values()) {
+            synchronized (history) {
+                history.raw.trimBefore(now - retentionMillis.get(PriceResolution.RAW));
+                history.candles.forEach((resolution, series) -> series.trimBefore(now - retentionMillis.get(resolution)));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private PriceResolution chooseResolution(long from, long to) {
+        long now = System.currentTimeMillis();
+        for (PriceResolution resolution : List.of(PriceResolution.MINUTE, PriceResolution.HOUR)) {
+            boolean retained = from >= now - retentionMillis.get(resolution);
+            if (retained && (to - from) / resolution.bucketMillis() <= maxPoints) {
+                return resolution;
+            }
+        }
+        return PriceResolution.DAY;
+    }
+
+    private static long[] mergeSorted(long[] a, long[] b) {
+        long[] merged = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < a.length || j < b.length) {
+            long next = j >= b.length || (i < a.length && a[i] <= b[j]) ? a[i++] : b[j++];
+            if (k == 0 || merged[k - 1] != next) {
+                merged[k++] = next;
+            }
+        }
+        return Arrays.copyOf(merged, k);
+    }
+
+    private static void fill(PriceHistoryResponse response, long[] timestamps, double[] open, double[] high,
+            double[] low, double[] close) {
+        response.setTimestamps(timestamps);
+        response.setOpen(open);
+        response.setHigh(high);
+        response.setLow(low);
+        response.setClose(close);
+    }
+
+    private static PriceCandle candle(String ticker, PriceResolution resolution, long start, long open, long high,
+            long low, long close) {
+        PriceCandle candle = new PriceCandle();
+        candle.setTicker(ticker);
+        candle.setResolution(resolution);
+        candle.setBucketStart(start);
+        candle.setOpenMicros(open);
+        candle.setHighMicros(high);
+        candle.setLowMicros(low);
+        candle.setCloseMicros(close);
+        return candle;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("stock.history.tickers", histories, Map::size)
+                .register(registry);
+        Gauge.builder("stock.history.candles.pending", pendingCandles, Queue::size)
+                .description("Closed candles waiting to be persisted")
+                .register(registry);
+    }
+}
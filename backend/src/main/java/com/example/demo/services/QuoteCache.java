@@ -0,0 +1,152 @@
+package com.example.demo.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory price cache used by {@link StockService}.
+ *
+ * Entries younger than the fresh TTL are served as-is. Entries between the
+ * fresh TTL and the max age are served as stale so the caller can refresh them
+ * in the background. Anything older is treated as a miss but kept as the last
+ * known price for when the upstream cannot be called. When the cache is full
+ * the least recently used ticker is evicted.
+ */
+@Component
+public class QuoteCache implements MeterBinder {
+
+    public enum Freshness {
+        FRESH, STALE
+    }
+
+    public record CachedPrice(double price, long fetchedAt, Freshness freshness) {
+    }
+
+    private record Entry(double price, long fetchedAt) {
+    }
+
+    private final int maxSize;
+    private final long freshTtlMillis;
+    private final long maxAgeMillis;
+    private final Map<String, Entry> entries;
+    private final List<QuoteProvider.TickListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public QuoteCache(
+            @Value("${stock.cache.max-size:10000}") int maxSize,
+            @Value("${stock.cache.fresh-ttl:60000}") long freshTtlMillis,
+            @Value("${stock.cache.max-age:900000}") long maxAgeMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Quote cache size must be positive");
+        }
+        if (freshTtlMillis <= 0) {
+            throw new IllegalArgumentException("Quote cache fresh TTL must be positive");
+        }
+        if (maxAgeMillis < freshTtlMillis) {
+            throw new IllegalArgumentException("Quote cache max age must not be shorter than the fresh TTL");
+        }
+        this.maxSize = maxSize;
+        this.freshTtlMillis = freshTtlMillis;
+        this.maxAgeMillis = maxAgeMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > QuoteCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Optional<CachedPrice> lookup(String ticker) {
+        long now = System.currentTimeMillis();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(ticker);
+        }
+
+        if (entry == null || now - entry.fetchedAt() > maxAgeMillis) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        if (now - entry.fetchedAt() <= freshTtlMillis) {
+            hits.incrementAndGet();
+            return Optional.of(new CachedPrice(entry.price(), entry.fetchedAt(), Freshness.FRESH));
+        }
+        staleHits.incrementAndGet();
+        return Optional.of(new CachedPrice(entry.price(), entry.fetchedAt(), Freshness.STALE));
+    }
+
+    /** Latest cached price regardless of age, without touching the hit counters. */
+    public Optional<CachedPrice> lastKnown(String ticker) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(ticker);
+        }
+        if (entry == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new CachedPrice(entry.price(), entry.fetchedAt(), Freshness.STALE));
+    }
+
+    public void put(String ticker, double price) {
+        Entry entry = new Entry(price, System.currentTimeMillis());
+        synchronized (entries) {
+            entries.put(ticker, entry);
+        }
+        for (QuoteProvider.TickListener listener : listeners) {
+            listener.onTick(ticker, price, entry.fetchedAt());
+        }
+    }
+
+    /**
+     * Number of the fresh-TTL window {@code now} falls in. Anything validated
+     * against prices should also be validated against this, so it is
+     * re-priced at least as often as the cache goes stale.
+     */
+    public long freshnessWindow(long now) {
+        return now / freshTtlMillis;
+    }
+
+    /** Notifies {@code listener} of every price stored, whether fetched, refreshed or pushed. */
+    public void subscribe(QuoteProvider.TickListener listener) {
+        listeners.add(listener);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("stock.quote.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("stock.quote.cache.requests", staleHits, AtomicLong::get)
+                .tag("result", "stale").register(registry);
+        FunctionCounter.builder("stock.quote.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("stock.quote.cache.evictions", evictions, AtomicLong::get)
+                .register(registry);
+        Gauge.builder("stock.quote.cache.size", this, QuoteCache::size)
+                .register(registry);
+    }
+}
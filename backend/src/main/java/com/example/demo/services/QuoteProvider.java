@@ -0,0 +1,40 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.CompanyOverview;
+
+import java.util.Optional;
+
+/**
+ * Source of market data behind {@link StockService}. Exactly one provider is
+ * active, selected with {@code stock.quote.provider}
+ * ({@code alphavantage}, {@code mock} or {@code replay}).
+ */
+public interface QuoteProvider {
+
+    /** Receives every price a provider pushes on its own, e.g. replayed ticks. */
+    @FunctionalInterface
+    interface TickListener {
+        void onTick(String ticker, double price, long timestamp);
+    }
+
+    String name();
+
+    /** Whether the provider can serve requests, e.g. has real credentials. */
+    boolean isAvailable();
+
+    /** Whether calls consume an upstream budget and must go through {@link UpstreamRequestScheduler}. */
+    default boolean isRateLimited() {
+        return false;
+    }
+
+    /** Latest price for an upper-case ticker. */
+    double fetchPrice(String ticker) throws Exception;
+
+    default Optional<CompanyOverview> fetchOverview(String ticker) throws Exception {
+        return Optional.empty();
+    }
+
+    /** Providers that stream prices call the listener for every tick; pull-only providers ignore it. */
+    default void subscribe(TickListener listener) {
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.AuthTokens;
+import com.example.demo.entity.RefreshToken;
+import com.example.demo.entity.User;
+import com.example.demo.exception.InvalidTokenException;
+import com.example.demo.repo.RefreshTokenRepository;
+import com.example.demo.repo.UserRepository;
+import com.example.demo.util.JwtUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Sign-in sessions: a short-lived access token plus a rotating refresh token.
+ *
+ * Refresh tokens are random, single-use and stored only as a digest. Each
+ * refresh uses the presented token up and issues its successor in the same
+ * family. A token presented a second time has leaked, so the whole family is
+ * revoked and both holders must sign in again. Signing out revokes the
+ * access token through the {@link TokenRevocationList} and ends the family.
+ */
+@Service
+public class RefreshTokenService {
+    private static final Logger logger = Logger.getLogger(RefreshTokenService.class.getName());
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final JwtUtil jwtUtil;
+    private final TokenRevocationList revocationList;
+    private final long refreshExpiration;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(
+            RefreshTokenRepository refreshTokenRepository,
+            UserRepository userRepository,
+            JwtUtil jwtUtil,
+            TokenRevocationList revocationList,
+            @Value("${jwt.refresh-expiration:1209600000}") long refreshExpiration) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.jwtUtil = jwtUtil;
+        this.revocationList = revocationList;
+        this.refreshExpiration = refreshExpiration;
+    }
+
+    /** Starts a new session for a user who just proved their password. */
+    @Transactional
+    public AuthTokens issue(Long userId, String username) {
+        return issue(userId, username, UUID.randomUUID().toString());
+    }
+
+    // Reuse detection must commit the family revocation even though the caller gets an error
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public AuthTokens refresh(String rawToken) {
+        RefreshToken token = refreshTokenRepository.findByTokenHash(digest(rawToken))
+                .orElseThrow(() -> new InvalidTokenException("Invalid refresh token"));
+        LocalDateTime now = LocalDateTime.now();
+        if (token.isRevoked() || !token.getExpiresAt().isAfter(now)) {
+            throw new InvalidTokenException("Refresh token expired or revoked");
+        }
+        if (refreshTokenRepository.markUsed(token.getId(), now) == 0) {
+            refreshTokenRepository.revokeFamily(token.getFamily());
+            logger.warning("Refresh token reused for user " + token.getUserId() + ", session revoked");
+            throw new InvalidTokenException("Refresh token already used, session revoked");
+        }
+        User user = userRepository.findById(token.getUserId())
+                .orElseThrow(() -> new InvalidTokenException("User no longer exists"));
+        return issue(user.getId(), user.getUsername(), token.getFamily());
+    }
+
+    /** Revokes the presented access token and, when given, the session its refresh token belongs to. */
+    @Transactional
+    public void logout(JwtUtil.VerifiedToken accessToken, String rawRefreshToken) {
+        if (accessToken != null && accessToken.tokenId() != null) {
+            revocationList.revoke(accessToken.tokenId(), accessToken.expiresAt());
+        }
+        if (rawRefreshToken != null && !rawRefreshToken.isBlank()) {
+            refreshTokenRepository.findByTokenHash(digest(rawRefreshToken))
+                    .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamily()));
+        }
+    }
+
+    // Used tokens are kept until expiry so a replay is still recognised
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:300000}", initialDelayString = "${jwt.revocation.purge-interval:300000}")
+    @Transactional
+    public void purge() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("Purged " + deleted + " expired refresh tokens");
+        }
+    }
+
+    private AuthTokens issue(Long userId, String username, String family) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(digest(rawToken));
+        token.setFamily(family);
+        token.setUserId(userId);
+        token.setExpiresAt(LocalDateTime.now().plus(Duration.ofMillis(refreshExpiration)));
+        refreshTokenRepository.save(token);
+
+        return new AuthTokens(jwtUtil.generateToken(userId, username), rawToken, jwtUtil.expiration() / 1000);
+    }
+
+    private static String digest(String rawToken) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.demo.services;
+
+import com.example.demo.util.TickFile;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+
+/**
+ * Replays recorded ticks from a {@link TickFile} so price handling can be
+ * load-tested without the network. Ticks are played back at {@code speed}
+ * times real time ({@code 0} replays as fast as possible), optionally in a
+ * loop. Each tick becomes the latest price for its symbol and is pushed to
+ * subscribed listeners.
+ */
+@Component
+@ConditionalOnProperty(name = "stock.quote.provider", havingValue = "replay")
+public class ReplayQuoteProvider implements QuoteProvider {
+    private static final Logger logger = Logger.getLogger(ReplayQuoteProvider.class.getName());
+    private static final long NO_PRICE = -1;
+
+    private final TickFile tickFile;
+    private final double speed;
+    private final boolean loop;
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private final AtomicLongArray latestMicros;
+    private final List<TickListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong ticksReplayed = new AtomicLong();
+    private final Thread replayThread;
+    private volatile boolean running = true;
+
+    public ReplayQuoteProvider(
+            @Value("${stock.replay.file}") String file,
+            @Value("${stock.replay.speed:1.0}") double speed,
+            @Value("${stock.replay.loop:true}") boolean loop) throws IOException {
+        this.tickFile = TickFile.open(Path.of(file));
+        this.speed = speed;
+        this.loop = loop;
+
+        List<String> symbols = tickFile.symbols();
+        for (int i = 0; i < symbols.size(); i++) {
+            symbolIds.put(symbols.get(i), i);
+        }
+        this.latestMicros = new AtomicLongArray(symbols.size());
+        for (int i = 0; i < symbols.size(); i++) {
+            latestMicros.set(i, NO_PRICE);
+        }
+
+        logger.info("Replaying " + tickFile.recordCount() + " ticks for " + symbols.size()
+                + " symbols from " + file + " at " + speed + "x");
+        replayThread = new Thread(this::replayLoop, "quote-replay");
+        replayThread.setDaemon(true);
+        replayThread.start();
+    }
+
+    @Override
+    public String name() {
+        return "replay";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public double fetchPrice(String ticker) {
+        Integer id = symbolIds.get(ticker);
+        if (id == null) {
+            throw new RuntimeException("No recorded ticks for ticker: " + ticker);
+        }
+        long micros = latestMicros.get(id);
+        if (micros == NO_PRICE) {
+            throw new RuntimeException("No tick replayed yet for ticker: " + ticker);
+        }
+        return micros / 1_000_000.0;
+    }
+
+    @Override
+    public void subscribe(TickListener listener) {
+        listeners.add(listener);
+    }
+
+    public long ticksReplayed() {
+        return ticksReplayed.get();
+    }
+
+    private void replayLoop() {
+        List<String> symbols = tickFile.symbols();
+        int count = tickFile.recordCount();
+        try {
+            do {
+                long startNanos = System.nanoTime();
+                long wallStart = System.currentTimeMillis();
+                for (int i = 0; i < count && running; i++) {
+                    int offset = tickFile.offsetMillis(i);
+                    if (speed > 0) {
+                        long dueNanos = startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(offset) / speed);
+                        long waitNanos = dueNanos - System.nanoTime();
+                        if (waitNanos > 0) {
+                            TimeUnit.NANOSECONDS.sleep(waitNanos);
+                        }
+                    }
+
+                    int symbolId = tickFile.symbolId(i);
+                    long micros = tickFile.priceMicros(i);
+                    latestMicros.set(symbolId, micros);
+                    ticksReplayed.incrementAndGet();
+
+                    if (!listeners.isEmpty()) {
+                        // Replayed ticks are stamped with replay time so caches treat them as fresh
+                        long timestamp = speed > 0 ? wallStart + (long) (offset / speed) : System.currentTimeMillis();
+                        double price = micros / 1_000_000.0;
+                        for (TickListener listener : listeners) {
+                            listener.onTick(symbols.get(symbolId), price, timestamp);
+                        }
+                    }
+                }
+            } while (loop && running);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Replay finished after " + ticksReplayed.get() + " ticks");
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        running = false;
+        replayThread.interrupt();
+        tickFile.close();
+    }
+}
@@ -1,141 +1,256 @@
 package com.example.demo.services;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.demo.dto.Quote;
+import com.example.demo.exception.CircuitOpenException;
+import com.example.demo.exception.UpstreamThrottledException;
+import com.example.demo.services.UpstreamRequestScheduler.Priority;
+import com.example.demo.util.SingleFlight;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
 
 @Service
 @RequiredArgsConstructor
 public class StockService {
     private static final Logger logger = Logger.getLogger(StockService.class.getName());
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final QuoteProvider quoteProvider;
+    private final QuoteCache quoteCache;
+    private final UpstreamGuard upstreamGuard;
+    private final HotTickerSet hotSet;
+    private final CompanyMetadataStore companyMetadata;
 
-    @Value("${alpha.vantage.api.key}")
-    private String apiKey;
+    // Batch misses and stale refreshes run on virtual threads; one refresh per ticker at a time
+    private final ExecutorService quoteExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
 
-    // Fallback mock prices for testing when API fails
-    private static final Map<String, Double> MOCK_PRICES = new HashMap<>();
+    // Concurrent fetches for the same ticker share one upstream call
+    private final SingleFlight<String, Double> inFlightQuotes = new SingleFlight<>();
 
-    static {
-        MOCK_PRICES.put("IBM", 288.37);
-        MOCK_PRICES.put("AAPL", 150.25);
-        MOCK_PRICES.put("MSFT", 300.75);
-        MOCK_PRICES.put("GOOGL", 2800.50);
-        MOCK_PRICES.put("TSLA", 250.00);
-        MOCK_PRICES.put("AMZN", 3200.00);
-        MOCK_PRICES.put("META", 350.75);
-        MOCK_PRICES.put("VTI", 220.50);
-        MOCK_PRICES.put("SPY", 450.25);
+    // Fallback prices for when the active provider is unavailable or fails
+    private final MockQuoteProvider fallbackProvider = new MockQuoteProvider();
+
+    @Value("${stock.batch.timeout:5000}")
+    private long batchTimeoutMillis;
+
+    @PostConstruct
+    public void subscribeToTicks() {
+        // Streaming providers keep the cache warm without any request asking for a price
+        quoteProvider.subscribe((ticker, price, timestamp) -> quoteCache.put(ticker, price));
     }
 
     public Double getCurrentPrice(String ticker) {
         try {
-            String upperTicker = ticker.toUpperCase();
-            logger.info("Fetching real-time price for ticker: " + upperTicker);
-
-            // Try to fetch from Alpha Vantage API first
-            if (apiKey != null && !apiKey.equals("demo")) {
-                try {
-                    return fetchFromAlphaVantage(upperTicker);
-                } catch (Exception e) {
-                    logger.warning("Alpha Vantage API failed for " + upperTicker + ", falling back to mock data: "
-                            + e.getMessage());
-                }
-            } else {
-                logger.info("Using demo API key, falling back to mock data");
+            Quote quote = getQuote(ticker);
+            if (!quote.hasPrice()) {
+                throw new RuntimeException(quote.error());
             }
-
-            // Fallback to mock prices
-            return getMockPrice(upperTicker);
-
+            return quote.price();
         } catch (Exception e) {
             logger.severe("Error fetching price for " + ticker + ": " + e.getMessage());
             throw new RuntimeException("Failed to fetch price for " + ticker + ": " + e.getMessage());
         }
     }
 
-    private Double fetchFromAlphaVantage(String ticker) throws Exception {
-        String url = String.format(
-                "https://www.alphavantage.co/query?function=GLOBAL_QUOTE&symbol=%s&apikey=%s",
-                ticker, apiKey);
+    public Quote getQuote(String ticker) {
+        String upperTicker = ticker.toUpperCase();
+        hotSet.recordRead(upperTicker);
+        return getCachedQuote(upperTicker).orElseGet(() -> loadQuote(upperTicker));
+    }
 
-        logger.info("Calling Alpha Vantage API: " + url);
-        String response = restTemplate.getForObject(url, String.class);
+    /**
+     * Non-blocking variant of {@link #getQuote}: cache hits complete
+     * immediately, misses are loaded on a virtual thread so the calling
+     * request thread is released while the provider responds.
+     */
+    public CompletableFuture<Quote> getQuoteAsync(String ticker) {
+        String upperTicker = ticker.toUpperCase();
+        hotSet.recordRead(upperTicker);
+        return getCachedQuote(upperTicker)
+                .map(CompletableFuture::completedFuture)
+                .orElseGet(() -> CompletableFuture.supplyAsync(() -> loadQuote(upperTicker), quoteExecutor));
+    }
 
-        if (response == null || response.contains("Error Message") || response.contains("Invalid API call")) {
-            throw new RuntimeException("Alpha Vantage API returned error for ticker: " + ticker);
-        }
+    public CompletableFuture<Double> getCurrentPriceAsync(String ticker) {
+        return getQuoteAsync(ticker).thenApply(quote -> {
+            if (!quote.hasPrice()) {
+                throw new RuntimeException("Failed to fetch price for " + ticker + ": " + quote.error());
+            }
+            return quote.price();
+        });
+    }
 
-        JsonNode root = objectMapper.readTree(response);
-        JsonNode globalQuote = root.get("Global Quote");
+    /**
+     * Prices a set of tickers in one call. Symbols are normalised and
+     * deduplicated, cache hits are answered inline and misses are fetched
+     * concurrently. Tickers that cannot be priced before the batch deadline
+     * come back with an {@code ERROR} quote rather than being dropped.
+     */
+    public Map<String, Quote> getCurrentPrices(Collection<String> tickers) {
+        Map<String, Quote> quotes = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Quote>> pending = new LinkedHashMap<>();
 
-        if (globalQuote == null || globalQuote.isNull()) {
-            throw new RuntimeException("No data found for ticker: " + ticker);
+        for (String ticker : tickers) {
+            String upperTicker = ticker.toUpperCase();
+            if (quotes.containsKey(upperTicker) || pending.containsKey(upperTicker)) {
+                continue;
+            }
+            hotSet.recordRead(upperTicker);
+            Optional<Quote> cached = getCachedQuote(upperTicker);
+            if (cached.isPresent()) {
+                quotes.put(upperTicker, cached.get());
+            } else {
+                pending.put(upperTicker, CompletableFuture.supplyAsync(
+                        () -> loadQuote(upperTicker), quoteExecutor));
+            }
         }
 
-        JsonNode priceNode = globalQuote.get("05. price");
-        if (priceNode == null || priceNode.isNull()) {
-            throw new RuntimeException("Price not found in response for ticker: " + ticker);
+        if (!pending.isEmpty()) {
+            try {
+                CompletableFuture.allOf(pending.values().toArray(CompletableFuture[]::new))
+                        .get(batchTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                logger.warning("Quote batch deadline of " + batchTimeoutMillis + "ms exceeded");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // Individual failures are reported per ticker below
+            }
+
+            // Unfinished fetches keep running and land in the cache for the next request
+            pending.forEach((ticker, future) -> {
+                Quote quote;
+                if (future.isDone() && !future.isCompletedExceptionally()) {
+                    quote = future.join();
+                } else if (future.isDone()) {
+                    quote = Quote.error(ticker, "Failed to fetch price for " + ticker);
+                } else {
+                    quote = Quote.error(ticker, "Timed out fetching price for " + ticker);
+                }
+                quotes.put(ticker, quote);
+            });
         }
 
-        double price = priceNode.asDouble();
-        logger.info("Successfully fetched price for " + ticker + ": $" + price);
-        return price;
+        return quotes;
     }
 
-    private Double getMockPrice(String ticker) {
-        if (MOCK_PRICES.containsKey(ticker)) {
-            Double price = MOCK_PRICES.get(ticker);
-            logger.info("Returning mock price for " + ticker + ": $" + price);
-            return price;
+    private Optional<Quote> getCachedQuote(String upperTicker) {
+        return quoteCache.lookup(upperTicker).map(cached -> {
+            if (cached.freshness() == QuoteCache.Freshness.STALE) {
+                refreshInBackground(upperTicker);
+                return Quote.of(upperTicker, cached.price(), Quote.Status.STALE, cached.fetchedAt());
+            }
+            return Quote.of(upperTicker, cached.price(), Quote.Status.CACHED, cached.fetchedAt());
+        });
+    }
+
+    private Quote loadQuote(String upperTicker) {
+        logger.info("Fetching real-time price for ticker: " + upperTicker);
+
+        // Try the configured provider first
+        if (isProviderAvailable()) {
+            try {
+                double price = fetchFromProvider(upperTicker, Priority.INTERACTIVE);
+                return Quote.of(upperTicker, price, Quote.Status.LIVE, System.currentTimeMillis());
+            } catch (UpstreamThrottledException e) {
+                // Rate limited: a real but older price beats a made-up one
+                return lastKnownQuote(upperTicker, Quote.Status.THROTTLED)
+                        .orElseGet(() -> Quote.error(upperTicker, e.getMessage()));
+            } catch (CircuitOpenException e) {
+                return lastKnownQuote(upperTicker, Quote.Status.DEGRADED)
+                        .orElseGet(() -> Quote.error(upperTicker, e.getMessage()));
+            } catch (Exception e) {
+                Optional<Quote> lastKnown = lastKnownQuote(upperTicker, Quote.Status.DEGRADED);
+                if (lastKnown.isPresent()) {
+                    logger.warning(quoteProvider.name() + " provider failed for " + upperTicker
+                            + ", serving last known price: " + e.getMessage());
+                    return lastKnown.get();
+                }
+                logger.warning(quoteProvider.name() + " provider failed for " + upperTicker
+                        + ", falling back to mock data: " + e.getMessage());
+            }
+        } else {
+            logger.info(quoteProvider.name() + " provider unavailable, falling back to mock data");
         }
 
-        // For unknown tickers, return a default price
-        logger.warning("Unknown ticker " + ticker + ", returning default price");
-        return 100.0;
+        // Fallback to mock prices
+        return Quote.of(upperTicker, fallbackProvider.fetchPrice(upperTicker), Quote.Status.MOCK,
+                System.currentTimeMillis());
     }
 
-    public Map<String, Object> getStockInfo(String ticker) {
-        try {
-            String upperTicker = ticker.toUpperCase();
-            Map<String, Object> stockInfo = new HashMap<>();
-
-            // Get current price
-            stockInfo.put("currentPrice", getCurrentPrice(upperTicker));
-            stockInfo.put("ticker", upperTicker);
-            stockInfo.put("timestamp", System.currentTimeMillis());
-
-            // If using real API, try to get additional info
-            if (apiKey != null && !apiKey.equals("demo")) {
-                try {
-                    String url = String.format(
-                            "https://www.alphavantage.co/query?function=OVERVIEW&symbol=%s&apikey=%s",
-                            upperTicker, apiKey);
-
-                    String response = restTemplate.getForObject(url, String.class);
-                    if (response != null && !response.contains("Error Message")) {
-                        JsonNode root = objectMapper.readTree(response);
-                        stockInfo.put("name", root.get("Name").asText());
-                        stockInfo.put("sector", root.get("Sector").asText());
-                        stockInfo.put("industry", root.get("Industry").asText());
-                    }
-                } catch (Exception e) {
-                    logger.warning("Failed to fetch additional info for " + upperTicker + ": " + e.getMessage());
-                }
+    private Optional<Quote> lastKnownQuote(String upperTicker, Quote.Status status) {
+        return quoteCache.lastKnown(upperTicker)
+                .map(cached -> Quote.of(upperTicker, cached.price(), status, cached.fetchedAt()));
+    }
+
+    public boolean isProviderAvailable() {
+        return quoteProvider.isAvailable();
+    }
+
+    /** Refreshes the given upper-case tickers in the background at background priority. */
+    public void refresh(Collection<String> tickers) {
+        tickers.forEach(this::refreshInBackground);
+    }
+
+    private void refreshInBackground(String ticker) {
+        if (!refreshing.add(ticker)) {
+            return;
+        }
+        quoteExecutor.execute(() -> {
+            try {
+                fetchFromProvider(ticker, Priority.BACKGROUND);
+            } catch (Exception e) {
+                logger.warning("Background refresh failed for " + ticker + ", keeping stale price: " + e.getMessage());
+            } finally {
+                refreshing.remove(ticker);
             }
+        });
+    }
+
+    private Double fetchFromProvider(String ticker, Priority priority) throws Exception {
+        return inFlightQuotes.await(ticker, () -> {
+            double price = upstreamGuard.call(priority, () -> quoteProvider.fetchPrice(ticker));
+            quoteCache.put(ticker, price);
+            return price;
+        });
+    }
 
+    public CompletableFuture<Map<String, Object>> getStockPriceAsync(String ticker) {
+        return getCurrentPriceAsync(ticker).thenApply(price -> priceInfo(ticker.toUpperCase(), price));
+    }
+
+    public CompletableFuture<Map<String, Object>> getStockInfoAsync(String ticker) {
+        return getStockPriceAsync(ticker).thenApplyAsync(stockInfo -> {
+            // Company metadata comes from the long-lived store, not an OVERVIEW call per request
+            companyMetadata.find((String) stockInfo.get("ticker")).ifPresent(info -> {
+                stockInfo.put("name", info.name());
+                stockInfo.put("sector", info.sector());
+                stockInfo.put("industry", info.industry());
+            });
             return stockInfo;
-        } catch (Exception e) {
-            logger.severe("Error fetching stock info for " + ticker + ": " + e.getMessage());
-            throw new RuntimeException("Failed to fetch stock info for " + ticker + ": " + e.getMessage());
-        }
+        }, quoteExecutor);
+    }
+
+    private Map<String, Object> priceInfo(String upperTicker, double price) {
+        Map<String, Object> stockInfo = new HashMap<>();
+        stockInfo.put("currentPrice", price);
+        stockInfo.put("ticker", upperTicker);
+        stockInfo.put("timestamp", System.currentTimeMillis());
+        return stockInfo;
     }
-}
\ No newline at end of file
+}
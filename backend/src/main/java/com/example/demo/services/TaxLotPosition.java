@@ -0,0 +1,153 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.CostBasisMethod;
+import com.example.demo.dto.TaxLot;
+import com.example.demo.dto.TransactionType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Position in one ticker, derived by applying ledger entries in order.
+ *
+ * Open lots are kept oldest first; sells consume them from the front (FIFO)
+ * or the back (LIFO), and under AVERAGE every buy is pooled into a single
+ * lot. Holdings that predate the ledger have no lots, so the part of a sell
+ * exceeding the open lots realises nothing. Not thread-safe.
+ */
+public class TaxLotPosition {
+    private static final double EPSILON = 1e-9;
+
+    private final CostBasisMethod method;
+    private final Deque<double[]> lots = new ArrayDeque<>();
+    private double realizedPnl;
+    private double dividends;
+    private long lastTransactionId;
+    private int appliedSinceSnapshot;
+
+    public TaxLotPosition(CostBasisMethod method) {
+        this.method = method;
+    }
+
+    /** Restores a position from a snapshot; see {@link #encodeLots()}. */
+    public static TaxLotPosition restore(CostBasisMethod method, long throughTransactionId, double realizedPnl,
+            double dividends, String encodedLots) {
+        TaxLotPosition position = new TaxLotPosition(method);
+        position.lastTransactionId = throughTransactionId;
+        position.realizedPnl = realizedPnl;
+        position.dividends = dividends;
+        if (encodedLots != null && !encodedLots.isEmpty()) {
+            for (String lot : encodedLots.split(";")) {
+                int separator = lot.indexOf(':');
+                position.lots.addLast(new double[] {
+                        Double.parseDouble(lot.substring(0, separator)),
+                        Double.parseDouble(lot.substring(separator + 1)) });
+            }
+        }
+        return position;
+    }
+
+    public void apply(long transactionId, TransactionType type, double quantity, double price) {
+        switch (type) {
+            case BUY -> buy(quantity, price);
+            case SELL -> sell(quantity, price);
+            case DIVIDEND -> dividends += quantity * price;
+            case SPLIT -> lots.forEach(lot -> {
+                lot[0] *= quantity;
+                lot[1] /= quantity;
+            });
+        }
+        lastTransactionId = transactionId;
+        appliedSinceSnapshot++;
+    }
+
+    private void buy(double quantity, double price) {
+        if (method == CostBasisMethod.AVERAGE && !lots.isEmpty()) {
+            double[] pooled = lots.getFirst();
+            double total = pooled[0] + quantity;
+            pooled[1] = (pooled[0] * pooled[1] + quantity * price) / total;
+            pooled[0] = total;
+        } else {
+            lots.addLast(new double[] { quantity, price });
+        }
+    }
+
+    private void sell(double quantity, double price) {
+        double remaining = quantity;
+        while (remaining > EPSILON && !lots.isEmpty()) {
+            double[] lot = method == CostBasisMethod.LIFO ? lots.getLast() : lots.getFirst();
+            double matched = Math.min(remaining, lot[0]);
+            realizedPnl += matched * (price - lot[1]);
+            lot[0] -= matched;
+            remaining -= matched;
+            if (lot[0] <= EPSILON) {
+                if (method == CostBasisMethod.LIFO) {
+                    lots.removeLast();
+                } else {
+                    lots.removeFirst();
+                }
+            }
+        }
+    }
+
+    public CostBasisMethod method() {
+        return method;
+    }
+
+    public double quantity() {
+        double quantity = 0;
+        for (double[] lot : lots) {
+            quantity += lot[0];
+        }
+        return quantity;
+    }
+
+    public double costBasis() {
+        double cost = 0;
+        for (double[] lot : lots) {
+            cost += lot[0] * lot[1];
+        }
+        return cost;
+    }
+
+    public double realizedPnl() {
+        return realizedPnl;
+    }
+
+    public double dividends() {
+        return dividends;
+    }
+
+    public long lastTransactionId() {
+        return lastTransactionId;
+    }
+
+    /** Entries applied since the position was restored or last marked as snapshotted. */
+    public int appliedSinceSnapshot() {
+        return appliedSinceSnapshot;
+    }
+
+    public void markSnapshotted() {
+        appliedSinceSnapshot = 0;
+    }
+
+    public List<TaxLot> lots() {
+        List<TaxLot> open = new ArrayList<>(lots.size());
+        lots.forEach(lot -> open.add(new TaxLot(lot[0], lot[1])));
+        return open;
+    }
+
+    /** Lots as {@code quantity:unitCost} pairs joined by {@code ;}, oldest first; round-trips exactly. */
+    public String encodeLots() {
+        StringBuilder encoded = new StringBuilder();
+        for (double[] lot : lots) {
+            if (!encoded.isEmpty()) {
+                encoded.append(';');
+            }
+            encoded.append(lot[0]).append(':').append(lot[1]);
+        }
+        return encoded.toString();
+    }
+}
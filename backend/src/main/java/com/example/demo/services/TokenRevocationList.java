@@ -0,0 +1,164 @@
+package com.example.demo.services;
+
+import com.example.demo.entity.RevokedToken;
+import com.example.demo.repo.RevokedTokenRepository;
+import com.example.demo.util.BloomFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Access tokens revoked before expiry, checked on every authenticated request.
+ *
+ * A Bloom filter answers almost every check with a hash and a few bit reads;
+ * only its positives consult the exact set, which also weeds out its false
+ * positives. Entries are dropped once the token expires, so both stay bounded
+ * by the revocations made within one access token lifetime. The set is
+ * loaded from the revocation table before requests are served and re-synced
+ * periodically to pick up revocations made by other instances.
+ */
+@Component
+public class TokenRevocationList implements MeterBinder {
+    private static final Logger logger = Logger.getLogger(TokenRevocationList.class.getName());
+
+    private final RevokedTokenRepository repository;
+    private final TransactionTemplate insertTransaction;
+    private final int expectedTokens;
+    private final double falsePositiveRate;
+
+    // jti -> expiry in epoch millis
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong filterPositives = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+
+    public TokenRevocationList(
+            RevokedTokenRepository repository,
+            PlatformTransactionManager transactionManager,
+            @Value("${jwt.revocation.expected-tokens:10000}") int expectedTokens,
+            @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.repository = repository;
+        // The insert commits on its own, so a duplicate surfaces here instead of
+        // failing the caller's transaction when it flushes
+        this.insertTransaction = new TransactionTemplate(transactionManager);
+        this.insertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedTokens, falsePositiveRate);
+    }
+
+    // Before the web server starts, so no request is served without the persisted revocations
+    @PostConstruct
+    public void load() {
+        sync();
+        logger.info("Loaded " + revoked.size() + " revoked tokens");
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+        checks.incrementAndGet();
+        if (!filter.mightContain(tokenId)) {
+            return false;
+        }
+        filterPositives.incrementAndGet();
+        if (revoked.containsKey(tokenId)) {
+            rejections.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /** Revokes the token here at once and records it for restarts and other instances. */
+    public void revoke(String tokenId, long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        if (!add(tokenId, expiresAt)) {
+            return;
+        }
+        RevokedToken row = new RevokedToken();
+        row.setTokenId(tokenId);
+        row.setExpiresAt(expiresAt);
+        try {
+            insertTransaction.executeWithoutResult(status -> repository.saveAndFlush(row));
+        } catch (DataIntegrityViolationException e) {
+            // Already recorded, by another instance or an earlier sync
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval:30000}", initialDelayString = "${jwt.revocation.sync-interval:30000}")
+    public void sync() {
+        for (RevokedToken row : repository.findByExpiresAtGreaterThan(System.currentTimeMillis())) {
+            add(row.getTokenId(), row.getExpiresAt());
+        }
+    }
+
+    /** Forgets expired revocations and rebuilds the filter, which cannot remove keys. */
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:300000}", initialDelayString = "${jwt.revocation.purge-interval:300000}")
+    @Transactional
+    public void purge() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        synchronized (this) {
+            for (Map.Entry<String, Long> entry : revoked.entrySet()) {
+                if (entry.getValue() <= now && revoked.remove(entry.getKey(), entry.getValue())) {
+                    removed++;
+                }
+            }
+            if (removed > 0) {
+                BloomFilter rebuilt = new BloomFilter(Math.max(expectedTokens, 2 * revoked.size()), falsePositiveRate);
+                revoked.keySet().forEach(rebuilt::put);
+                filter = rebuilt;
+            }
+        }
+        int deleted = repository.deleteExpired(now);
+        if (removed > 0 || deleted > 0) {
+            logger.info("Purged " + removed + " expired revocations, " + deleted + " rows");
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    // Serialized with purge so a rebuild never drops a concurrent revocation
+    private synchronized boolean add(String tokenId, long expiresAt) {
+        if (revoked.putIfAbsent(tokenId, expiresAt) != null) {
+            return false;
+        }
+        filter.put(tokenId);
+        return true;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.revocation.checks", checks, AtomicLong::get)
+                .register(registry);
+        FunctionCounter.builder("auth.revocation.filter.positives", filterPositives, AtomicLong::get)
+                .description("Checks the Bloom filter could not answer alone")
+                .register(registry);
+        FunctionCounter.builder("auth.revocation.rejections", rejections, AtomicLong::get)
+                .register(registry);
+        Gauge.builder("auth.revocation.size", this, TokenRevocationList::size)
+                .register(registry);
+    }
+}
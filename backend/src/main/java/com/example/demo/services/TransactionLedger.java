@@ -0,0 +1,109 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.CostBasisMethod;
+import com.example.demo.dto.TransactionType;
+import com.example.demo.entity.LedgerTransaction;
+import com.example.demo.entity.PositionSnapshot;
+import com.example.demo.repo.LedgerTransactionRepository;
+import com.example.demo.repo.PositionSnapshotRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+/**
+ * Append-only ledger of buys, sells, dividends and splits, and the positions
+ * derived from it.
+ *
+ * Entries are appended inside the caller's transaction, alongside the
+ * holding change they record. A position is rebuilt from its latest
+ * {@link PositionSnapshot} plus the entries after it; once that tail grows
+ * past {@code snapshot-every} entries a new snapshot is written, so reads
+ * never replay more than a short tail of history.
+ */
+@Service
+public class TransactionLedger {
+    private static final Logger logger = Logger.getLogger(TransactionLedger.class.getName());
+
+    private final LedgerTransactionRepository transactionRepository;
+    private final PositionSnapshotRepository snapshotRepository;
+    private final TransactionTemplate snapshotTransaction;
+    private final int snapshotEvery;
+
+    public TransactionLedger(
+            LedgerTransactionRepository transactionRepository,
+            PositionSnapshotRepository snapshotRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${portfolio.ledger.snapshot-every:100}") int snapshotEvery) {
+        this.transactionRepository = transactionRepository;
+        this.snapshotRepository = snapshotRepository;
+        // Snapshots commit on their own, so a duplicate surfaces here instead of
+        // failing the caller's transaction when it flushes
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Long portfolioId, String ticker, TransactionType type, double quantity, double price) {
+        LedgerTransaction transaction = new LedgerTransaction();
+        transaction.setPortfolioId(portfolioId);
+        transaction.setTicker(ticker);
+        transaction.setType(type);
+        transaction.setQuantity(quantity);
+        transaction.setPrice(price);
+        transactionRepository.save(transaction);
+    }
+
+    /** Every position the portfolio has a ledger history for, by ticker, in two queries. */
+    public Map<String, TaxLotPosition> positions(Long portfolioId, CostBasisMethod method) {
+        Map<String, TaxLotPosition> positions = new TreeMap<>();
+        for (PositionSnapshot snapshot : snapshotRepository.findLatestByPortfolioId(portfolioId, method)) {
+            positions.put(snapshot.getTicker(), TaxLotPosition.restore(method, snapshot.getThroughTransactionId(),
+                    snapshot.getRealizedPnl(), snapshot.getDividends(), snapshot.getLots()));
+        }
+        for (LedgerTransaction transaction : transactionRepository.findTailsByPortfolioId(portfolioId, method)) {
+            positions.computeIfAbsent(transaction.getTicker(), ticker -> new TaxLotPosition(method))
+                    .apply(transaction.getId(), transaction.getType(), transaction.getQuantity(), transaction.getPrice());
+        }
+
+        List<PositionSnapshot> snapshots = new ArrayList<>();
+        positions.forEach((ticker, position) -> {
+            if (position.appliedSinceSnapshot() >= snapshotEvery) {
+                snapshots.add(snapshot(portfolioId, ticker, position));
+                position.markSnapshotted();
+            }
+        });
+        if (!snapshots.isEmpty()) {
+            try {
+                snapshotTransaction.executeWithoutResult(status -> snapshotRepository.saveAllAndFlush(snapshots));
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent read already snapshotted the same entry; either copy will do
+                logger.fine("Position snapshot already written for portfolio " + portfolioId);
+            }
+        }
+        return positions;
+    }
+
+    private static PositionSnapshot snapshot(Long portfolioId, String ticker, TaxLotPosition position) {
+        PositionSnapshot snapshot = new PositionSnapshot();
+        snapshot.setPortfolioId(portfolioId);
+        snapshot.setTicker(ticker);
+        snapshot.setMethod(position.method());
+        snapshot.setThroughTransactionId(position.lastTransactionId());
+        snapshot.setRealizedPnl(position.realizedPnl());
+        snapshot.setDividends(position.dividends());
+        snapshot.setLots(position.encodeLots());
+        return snapshot;
+    }
+}
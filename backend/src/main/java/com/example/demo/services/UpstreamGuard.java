@@ -0,0 +1,199 @@
+package com.example.demo.services;
+
+import com.example.demo.exception.CircuitOpenException;
+import com.example.demo.exception.UpstreamUnavailableException;
+import com.example.demo.services.UpstreamRequestScheduler.Priority;
+import com.example.demo.util.CircuitBreaker;
+import com.example.demo.util.LatencyTracker;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Protects calls to the active {@link QuoteProvider}.
+ *
+ * Each call passes through a {@link CircuitBreaker}, so a degraded provider
+ * fails fast with {@link CircuitOpenException} instead of every caller
+ * waiting out a timeout, and through the {@link UpstreamRequestScheduler}
+ * when the provider is rate limited. With hedging enabled, a call still
+ * running after the recent p95 latency gets a duplicate, and whichever
+ * succeeds first wins.
+ */
+@Component
+public class UpstreamGuard implements MeterBinder {
+    private static final Logger logger = Logger.getLogger(UpstreamGuard.class.getName());
+
+    private final QuoteProvider quoteProvider;
+    private final UpstreamRequestScheduler scheduler;
+    private final CircuitBreaker breaker;
+    private final LatencyTracker latencies = new LatencyTracker(256);
+    private final boolean hedgingEnabled;
+    private final long minHedgeDelayNanos;
+    private final ExecutorService hedgeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, AtomicLong> transitions = new ConcurrentHashMap<>();
+    private final AtomicLong hedgesFired = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+
+    public UpstreamGuard(
+            QuoteProvider quoteProvider,
+            UpstreamRequestScheduler scheduler,
+            @Value("${stock.breaker.window-size:20}") int windowSize,
+            @Value("${stock.breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${stock.breaker.failure-rate:0.5}") double failureRate,
+            @Value("${stock.breaker.slow-call-rate:0.8}") double slowCallRate,
+            @Value("${stock.breaker.slow-call-duration:3000}") long slowCallMillis,
+            @Value("${stock.breaker.open-duration:30000}") long openMillis,
+            @Value("${stock.breaker.half-open-calls:3}") int halfOpenCalls,
+            @Value("${stock.hedge.enabled:false}") boolean hedgingEnabled,
+            @Value("${stock.hedge.min-delay:100}") long minHedgeDelayMillis) {
+        this.quoteProvider = quoteProvider;
+        this.scheduler = scheduler;
+        for (String transition : new String[] { "closed_open", "open_half_open", "half_open_open",
+                "half_open_closed" }) {
+            transitions.put(transition, new AtomicLong());
+        }
+        this.breaker = new CircuitBreaker(quoteProvider.name(), windowSize, minimumCalls, failureRate,
+                slowCallRate, TimeUnit.MILLISECONDS.toNanos(slowCallMillis), TimeUnit.MILLISECONDS.toNanos(openMillis),
+                halfOpenCalls, UpstreamGuard::isUpstreamFailure, this::onTransition);
+        this.hedgingEnabled = hedgingEnabled;
+        this.minHedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(minHedgeDelayMillis);
+    }
+
+    public <T> T call(Priority priority, Callable<T> call) throws Exception {
+        if (!hedgingEnabled) {
+            return attempt(priority, call);
+        }
+
+        CompletableFuture<T> primary = submit(priority, call);
+        long hedgeDelay = Math.max(minHedgeDelayNanos, latencies.percentile(0.95));
+        try {
+            return primary.get(hedgeDelay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Primary is slower than usual: race a duplicate against it
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+
+        hedgesFired.incrementAndGet();
+        CompletableFuture<T> hedge = submit(priority, call);
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failed = new AtomicInteger();
+        primary.whenComplete((result, failure) -> settle(winner, result, failure, failed, false));
+        hedge.whenComplete((result, failure) -> settle(winner, result, failure, failed, true));
+        try {
+            return winner.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    public CircuitBreaker.State breakerState() {
+        return breaker.state();
+    }
+
+    public long hedgesFired() {
+        return hedgesFired.get();
+    }
+
+    public long hedgesWon() {
+        return hedgesWon.get();
+    }
+
+    private <T> T attempt(Priority priority, Callable<T> call) throws Exception {
+        // Fail fast without spending a rate-limit token when the breaker is open
+        if (!breaker.allowsCalls()) {
+            throw new CircuitOpenException("Circuit breaker '" + quoteProvider.name() + "' is open");
+        }
+        Callable<T> guarded = () -> breaker.call(() -> {
+            long start = System.nanoTime();
+            T result = call.call();
+            latencies.record(System.nanoTime() - start);
+            return result;
+        });
+        return quoteProvider.isRateLimited() ? scheduler.execute(priority, guarded) : guarded.call();
+    }
+
+    private <T> CompletableFuture<T> submit(Priority priority, Callable<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return attempt(priority, call);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, hedgeExecutor);
+    }
+
+    private <T> void settle(CompletableFuture<T> winner, T result, Throwable failure, AtomicInteger failed,
+            boolean isHedge) {
+        if (failure == null) {
+            // Count the win before completing so callers see it as soon as they have the result
+            if (isHedge && !winner.isDone()) {
+                hedgesWon.incrementAndGet();
+            }
+            winner.complete(result);
+        } else if (failed.incrementAndGet() == 2) {
+            winner.completeExceptionally(failure);
+        }
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception exception ? exception : e;
+    }
+
+    /**
+     * Outcomes that say the provider is unhealthy: transport errors, timeouts,
+     * server errors and throttling. An unknown symbol or a missing overview is
+     * the caller's problem and must not open the breaker for every ticker.
+     */
+    private static boolean isUpstreamFailure(Exception e) {
+        return e instanceof IOException || e instanceof TimeoutException || e instanceof UpstreamUnavailableException;
+    }
+
+    private void onTransition(CircuitBreaker.State from, CircuitBreaker.State to) {
+        logger.warning("Circuit breaker for " + quoteProvider.name() + " provider: " + from + " -> " + to);
+        AtomicLong counter = transitions.get(from.name().toLowerCase() + "_" + to.name().toLowerCase());
+        if (counter != null) {
+            counter.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("stock.upstream.breaker.state", breaker, b -> b.state().ordinal())
+                .description("0 = closed, 1 = open, 2 = half open")
+                .register(registry);
+        transitions.forEach((transition, counter) ->
+                FunctionCounter.builder("stock.upstream.breaker.transitions", counter, AtomicLong::get)
+                        .tag("transition", transition).register(registry));
+        FunctionCounter.builder("stock.upstream.hedges", hedgesFired, AtomicLong::get)
+                .tag("result", "fired").register(registry);
+        FunctionCounter.builder("stock.upstream.hedges", hedgesWon, AtomicLong::get)
+                .tag("result", "won").register(registry);
+        Gauge.builder("stock.upstream.hedge.win.rate", this,
+                guard -> guard.hedgesFired() == 0 ? 0 : (double) guard.hedgesWon() / guard.hedgesFired())
+                .register(registry);
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.demo.services;
+
+import com.example.demo.exception.UpstreamThrottledException;
+import com.example.demo.util.TokenBucket;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Single entry point for every Alpha Vantage call.
+ *
+ * Calls are queued by priority and released by one dispatcher thread as
+ * tokens become available in both the per-minute and the per-day bucket.
+ * Interactive calls always go ahead of background refreshes. A call that
+ * cannot get a token before its wait budget runs out fails with
+ * {@link UpstreamThrottledException} so the caller can serve a stale price.
+ */
+@Component
+public class UpstreamRequestScheduler implements MeterBinder {
+    private static final Logger logger = Logger.getLogger(UpstreamRequestScheduler.class.getName());
+
+    // Re-check the queue at least this often while waiting for a token
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    public enum Priority {
+        INTERACTIVE, BACKGROUND
+    }
+
+    private record Task(Priority priority, long sequence, long enqueuedAt, long deadline,
+            Callable<?> call, CompletableFuture<Object> result) implements Comparable<Task> {
+        @Override
+        public int compareTo(Task other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final LongSupplier nanoClock;
+    private final TokenBucket minuteBucket;
+    private final TokenBucket dayBucket;
+    private final Map<Priority, Long> maxWaitNanos = new EnumMap<>(Priority.class);
+
+    private final PriorityBlockingQueue<Task> queue = new PriorityBlockingQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ExecutorService callExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final Map<Priority, LongAdder> waitCount = new EnumMap<>(Priority.class);
+    private final Map<Priority, LongAdder> waitNanos = new EnumMap<>(Priority.class);
+
+    @Autowired
+    public UpstreamRequestScheduler(
+            @Value("${alpha.vantage.rate.per-minute:5}") int perMinute,
+            @Value("${alpha.vantage.rate.per-day:500}") int perDay,
+            @Value("${alpha.vantage.rate.interactive-max-wait:2000}") long interactiveMaxWaitMillis,
+            @Value("${alpha.vantage.rate.background-max-wait:60000}") long backgroundMaxWaitMillis) {
+        this(perMinute, perDay, interactiveMaxWaitMillis, backgroundMaxWaitMillis, System::nanoTime);
+    }
+
+    // Budgets and deadlines follow nanoClock; the dispatcher still parks in real time
+    // between checks, at most MAX_PARK_NANOS at once
+    UpstreamRequestScheduler(int perMinute, int perDay, long interactiveMaxWaitMillis,
+            long backgroundMaxWaitMillis, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.minuteBucket = new TokenBucket(perMinute, TimeUnit.MINUTES.toNanos(1), nanoClock);
+        this.dayBucket = new TokenBucket(perDay, TimeUnit.DAYS.toNanos(1), nanoClock);
+        maxWaitNanos.put(Priority.INTERACTIVE, TimeUnit.MILLISECONDS.toNanos(interactiveMaxWaitMillis));
+        maxWaitNanos.put(Priority.BACKGROUND, TimeUnit.MILLISECONDS.toNanos(backgroundMaxWaitMillis));
+        for (Priority priority : Priority.values()) {
+            waitCount.put(priority, new LongAdder());
+            waitNanos.put(priority, new LongAdder());
+        }
+
+        dispatcher = new Thread(this::dispatchLoop, "upstream-scheduler");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Queues {@code call} and blocks until it has run. Failures of the call are
+     * rethrown as-is; running out of budget raises {@link UpstreamThrottledException}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Priority priority, Callable<T> call) throws Exception {
+        long now = nanoClock.getAsLong();
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        queue.put(new Task(priority, sequence.getAndIncrement(), now, now + maxWaitNanos.get(priority),
+                call, result));
+        try {
+            return (T) result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                Task task = queue.take();
+                long now = nanoClock.getAsLong();
+                if (now > task.deadline()) {
+                    reject(task);
+                    continue;
+                }
+
+                long wait = Math.max(minuteBucket.nanosUntilAvailable(), dayBucket.nanosUntilAvailable());
+                if (wait > 0) {
+                    // Put it back so a higher priority call that arrives meanwhile goes first,
+                    // and fail everything that cannot be served before the next token
+                    queue.put(task);
+                    long nextToken = now + wait;
+                    queue.removeIf(queued -> {
+                        if (queued.deadline() < nextToken) {
+                            reject(queued);
+                            return true;
+                        }
+                        return false;
+                    });
+                    TimeUnit.NANOSECONDS.sleep(Math.min(wait, MAX_PARK_NANOS));
+                    continue;
+                }
+
+                minuteBucket.tryAcquire();
+                dayBucket.tryAcquire();
+                waitCount.get(task.priority()).increment();
+                waitNanos.get(task.priority()).add(now - task.enqueuedAt());
+                dispatched.incrementAndGet();
+                callExecutor.execute(() -> run(task));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void run(Task task) {
+        try {
+            task.result().complete(task.call().call());
+        } catch (Throwable t) {
+            task.result().completeExceptionally(t);
+        }
+    }
+
+    private void reject(Task task) {
+        throttled.incrementAndGet();
+        logger.warning("Alpha Vantage rate limit reached, rejecting " + task.priority() + " call");
+        task.result().completeExceptionally(
+                new UpstreamThrottledException("Alpha Vantage rate limit reached, call not scheduled"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        dispatcher.interrupt();
+        callExecutor.shutdown();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("stock.upstream.queue.depth", this, UpstreamRequestScheduler::queueDepth)
+                .register(registry);
+        Gauge.builder("stock.upstream.tokens", minuteBucket, TokenBucket::available)
+                .tag("window", "minute").register(registry);
+        Gauge.builder("stock.upstream.tokens", dayBucket, TokenBucket::available)
+                .tag("window", "day").register(registry);
+        FunctionCounter.builder("stock.upstream.calls", dispatched, AtomicLong::get)
+                .tag("result", "dispatched").register(registry);
+        FunctionCounter.builder("stock.upstream.calls", throttled, AtomicLong::get)
+                .tag("result", "throttled").register(registry);
+        for (Priority priority : Priority.values()) {
+            FunctionTimer.builder("stock.upstream.queue.wait", priority,
+                    p -> waitCount.get(p).sum(),
+                    p -> waitNanos.get(p).sum(),
+                    TimeUnit.NANOSECONDS)
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counting semaphore. {@link #acquire()} returns a future that
+ * completes once a permit is available, so callers queue without holding a
+ * thread. Permits are handed out in arrival order.
+ */
+public class AsyncSemaphore {
+    private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private int available;
+
+    public AsyncSemaphore(int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive");
+        }
+        this.available = permits;
+    }
+
+    public CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            if (available > 0) {
+                available--;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+    }
+
+    public void release() {
+        CompletableFuture<Void> next;
+        synchronized (this) {
+            next = waiters.poll();
+            if (next == null) {
+                available++;
+                return;
+            }
+        }
+        // Hand the permit straight to the next waiter, outside the lock
+        next.complete(null);
+    }
+
+    public synchronized int queued() {
+        return waiters.size();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.demo.util;
+
+import java.util.Arrays;
+
+/**
+ * Append-only OHLC series at a fixed bucket width, stored column-wise in
+ * primitive arrays with prices as fixed-point micro-units. Buckets are
+ * aligned to multiples of the width since the epoch. Not thread-safe.
+ */
+public class CandleSeries {
+    /** Receives a bucket once a later observation has closed it. */
+    @FunctionalInterface
+    public interface ClosedCandleListener {
+        void onClosed(long start, long open, long high, long low, long close);
+    }
+
+    private final long bucketMillis;
+    private long[] starts = new long[16];
+    private long[] open = new long[16];
+    private long[] high = new long[16];
+    private long[] low = new long[16];
+    private long[] close = new long[16];
+    private int head;
+    private int size;
+
+    public CandleSeries(long bucketMillis) {
+        this.bucketMillis = bucketMillis;
+    }
+
+    public long bucketMillis() {
+        return bucketMillis;
+    }
+
+    public int size() {
+        return size - head;
+    }
+
+    /**
+     * Folds an observation into its bucket. Observations older than the open
+     * bucket are folded into it rather than reordering history.
+     */
+    public void record(long timestamp, long micros, ClosedCandleListener listener) {
+        long start = timestamp - Math.floorMod(timestamp, bucketMillis);
+        int last = size - 1;
+        if (last >= head && start <= starts[last]) {
+            high[last] = Math.max(high[last], micros);
+            low[last] = Math.min(low[last], micros);
+            close[last] = micros;
+            return;
+        }
+        if (last >= head && listener != null) {
+            listener.onClosed(starts[last], open[last], high[last], low[last], close[last]);
+        }
+        append(start, micros, micros, micros, micros);
+    }
+
+    /** Appends a complete bucket, e.g. when loading persisted history; must be later than the last one. */
+    public void append(long start, long o, long h, long l, long c) {
+        if (size > head && start <= starts[size - 1]) {
+            return;
+        }
+        if (size == starts.length) {
+            grow();
+        }
+        starts[size] = start;
+        open[size] = o;
+        high[size] = h;
+        low[size] = l;
+        close[size] = c;
+        size++;
+    }
+
+    /** Drops buckets that start before {@code cutoff}. */
+    public void trimBefore(long cutoff) {
+        while (head < size && starts[head] < cutoff) {
+            head++;
+        }
+    }
+
+    /** Index range [from, to) of buckets starting within [fromMillis, toMillis). */
+    public int[] range(long fromMillis, long toMillis) {
+        int from = lowerBound(fromMillis);
+        int to = lowerBound(toMillis);
+        return new int[] { from, to };
+    }
+
+    public long start(int index) {
+        return starts[index];
+    }
+
+    public long open(int index) {
+        return open[index];
+    }
+
+    public long high(int index) {
+        return high[index];
+    }
+
+    public long low(int index) {
+        return low[index];
+    }
+
+    public long close(int index) {
+        return close[index];
+    }
+
+    /** Start of the earliest retained bucket, or {@code Long.MAX_VALUE} when empty. */
+    public long firstStart() {
+        return head < size ? starts[head] : Long.MAX_VALUE;
+    }
+
+    private int lowerBound(long millis) {
+        int index = Arrays.binarySearch(starts, head, size, millis);
+        if (index < 0) {
+            return -index - 1;
+        }
+        return index;
+    }
+
+    private void grow() {
+        int live = size - head;
+        // Reclaim trimmed slots first; only grow when more than half is live
+        int capacity = live * 2 > starts.length ? starts.length * 2 : starts.length;
+        starts = compact(starts, capacity, live);
+        open = compact(open, capacity, live);
+        high = compact(high, capacity, live);
+        low = compact(low, capacity, live);
+        close = compact(close, capacity, live);
+        head = 0;
+        size = live;
+    }
+
+    private long[] compact(long[] column, int capacity, int live) {
+        long[] copy = new long[capacity];
+        System.arraycopy(column, head, copy, 0, live);
+        return copy;
+    }
+}
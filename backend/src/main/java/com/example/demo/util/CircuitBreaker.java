@@ -0,0 +1,181 @@
+package com.example.demo.util;
+
+import com.example.demo.exception.CircuitOpenException;
+
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+
+/**
+ * Count-based circuit breaker.
+ *
+ * While CLOSED, the outcome of the last {@code windowSize} calls is kept and
+ * the breaker opens once at least {@code minimumCalls} have been recorded and
+ * either the failure rate or the slow-call rate reaches its threshold. An OPEN
+ * breaker rejects calls with {@link CircuitOpenException} until
+ * {@code openNanos} have passed, then lets {@code halfOpenCalls} trial calls
+ * through: all of them succeeding quickly closes it again, any failure or
+ * slow call reopens it. Only exceptions matching the failure predicate count
+ * as failures; others are passed on without being recorded at all.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @FunctionalInterface
+    public interface TransitionListener {
+        void onTransition(State from, State to);
+    }
+
+    private final String name;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final Predicate<Exception> isFailure;
+    private final TransitionListener listener;
+
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenInFlight;
+    private int halfOpenSucceeded;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+            double slowCallRateThreshold, long slowCallNanos, long openNanos, int halfOpenCalls,
+            Predicate<Exception> isFailure, TransitionListener listener) {
+        this.name = name;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallNanos;
+        this.openNanos = openNanos;
+        this.halfOpenCalls = halfOpenCalls;
+        this.isFailure = isFailure;
+        this.listener = listener;
+        this.failed = new boolean[windowSize];
+        this.slow = new boolean[windowSize];
+    }
+
+    public <T> T call(Callable<T> call) throws Exception {
+        if (!tryAcquire()) {
+            throw new CircuitOpenException("Circuit breaker '" + name + "' is open");
+        }
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            onResult(System.nanoTime() - start, false);
+            return result;
+        } catch (Exception e) {
+            if (isFailure.test(e)) {
+                onResult(System.nanoTime() - start, true);
+            } else {
+                onIgnored();
+            }
+            throw e;
+        }
+    }
+
+    /** Whether a call made now would be let through, without reserving a trial slot. */
+    public synchronized boolean allowsCalls() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> System.nanoTime() - openedAt >= openNanos;
+            case HALF_OPEN -> halfOpenInFlight + halfOpenSucceeded < halfOpenCalls;
+        };
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight + halfOpenSucceeded >= halfOpenCalls) {
+                return false;
+            }
+            halfOpenInFlight++;
+        }
+        return true;
+    }
+
+    private synchronized void onResult(long durationNanos, boolean failure) {
+        boolean slowCall = durationNanos > slowCallNanos;
+        switch (state) {
+            case HALF_OPEN -> {
+                halfOpenInFlight--;
+                if (failure || slowCall) {
+                    transition(State.OPEN);
+                } else if (++halfOpenSucceeded >= halfOpenCalls) {
+                    transition(State.CLOSED);
+                }
+            }
+            case CLOSED -> {
+                record(failure, slowCall);
+                if (recorded >= minimumCalls
+                        && ((double) failures / recorded >= failureRateThreshold
+                                || (double) slowCalls / recorded >= slowCallRateThreshold)) {
+                    transition(State.OPEN);
+                }
+            }
+            case OPEN -> {
+                // Late result of a call made before the breaker opened
+            }
+        }
+    }
+
+    private synchronized void onIgnored() {
+        // Says nothing about the dependency's health; only frees the trial slot it held
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight--;
+        }
+    }
+
+    private void record(boolean failure, boolean slowCall) {
+        if (recorded == failed.length) {
+            failures -= failed[next] ? 1 : 0;
+            slowCalls -= slow[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failed[next] = failure;
+        slow[next] = slowCall;
+        failures += failure ? 1 : 0;
+        slowCalls += slowCall ? 1 : 0;
+        next = (next + 1) % failed.length;
+    }
+
+    private void transition(State to) {
+        State from = state;
+        state = to;
+        switch (to) {
+            case OPEN -> openedAt = System.nanoTime();
+            case HALF_OPEN -> {
+                halfOpenInFlight = 0;
+                halfOpenSucceeded = 0;
+            }
+            case CLOSED -> {
+                next = 0;
+                recorded = 0;
+                failures = 0;
+                slowCalls = 0;
+            }
+        }
+        listener.onTransition(from, to);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.util;
+
+/**
+ * Fixed-point arithmetic on quantities, prices and values held as long
+ * micro-units (millionths). Conversions from floating point round half up;
+ * products round half away from zero. Overflow throws rather than wraps.
+ */
+public final class FixedPoint {
+    public static final long SCALE = 1_000_000L;
+    private static final long HALF = SCALE / 2;
+
+    private FixedPoint() {
+    }
+
+    public static long toMicros(double value) {
+        return Math.round(value * SCALE);
+    }
+
+    public static double toDouble(long micros) {
+        return micros / (double) SCALE;
+    }
+
+    /**
+     * Product of two micro-unit values, in micro-units. The integral part of
+     * {@code a} is multiplied exactly and only the fractional part is rounded,
+     * so a quantity in the millions times a price in the thousands stays in range.
+     */
+    public static long multiply(long a, long b) {
+        long whole = Math.multiplyExact(a / SCALE, b);
+        long fraction = Math.multiplyExact(a % SCALE, b);
+        long rounded = (fraction + (fraction >= 0 ? HALF : -HALF)) / SCALE;
+        return Math.addExact(whole, rounded);
+    }
+
+    /** {@code micros} times a plain factor such as a split ratio, rounded half up. */
+    public static long scale(long micros, double factor) {
+        return Math.round(micros * factor);
+    }
+}
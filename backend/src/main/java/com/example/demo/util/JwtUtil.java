@@ -1,79 +1,189 @@
 package com.example.demo.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
+/**
+ * Issues and verifies the HMAC-signed bearer tokens.
+ *
+ * The signing key and parser are built once. Verified tokens are remembered
+ * by the SHA-256 digest of the compact token until they expire, so a client
+ * reusing its token skips the signature check and JSON parse. Only tokens
+ * that passed verification are cached, and the least recently used entry is
+ * evicted when the cache is full. Each token carries a unique {@code jti};
+ * revocation is checked by the caller, not cached here.
+ */
 @Component
-public class JwtUtil {
+public class JwtUtil implements MeterBinder {
     private static final Logger logger = Logger.getLogger(JwtUtil.class.getName());
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLES_CLAIM = "roles";
 
-    @Value("${jwt.expiration}")
-    private Long expiration;
+    /**
+     * Claims of a token whose signature checked out; expiry in epoch millis.
+     * {@code userId} and {@code tokenId} are null for tokens issued before
+     * they were embedded.
+     */
+    public record VerifiedToken(String tokenId, String username, Long userId, List<String> roles, long expiresAt) {
+    }
+
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final long expiration;
+    private final int cacheSize;
+    private final Map<String, VerifiedToken> verified;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
 
-    private SecretKey getSigningKey() {
+    public JwtUtil(
+            @Value("${jwt.secret}") String secret,
+            @Value("${jwt.expiration}") long expiration,
+            @Value("${jwt.verified-cache.max-size:10000}") int cacheSize) {
         if (secret == null || secret.length() < 32) {
             logger.severe("JWT secret is invalid or too short. Must be at least 32 characters.");
             throw new IllegalArgumentException("JWT secret must be at least 32 characters long");
         }
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("JWT verified cache size must be positive");
+        }
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.expiration = expiration;
+        this.cacheSize = cacheSize;
+        this.verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > JwtUtil.this.cacheSize;
+            }
+        };
     }
 
-    public String generateToken(String username) {
+    public String generateToken(Long userId, String username) {
+        return generateToken(userId, username, List.of());
+    }
+
+    /** Embeds the user id and roles so authenticated requests need no user lookup. */
+    public String generateToken(Long userId, String username, Collection<String> roles) {
         if (username == null || username.isEmpty()) {
             logger.warning("Username is null or empty for token generation");
             throw new IllegalArgumentException("Username cannot be null or empty");
         }
+        if (userId == null) {
+            throw new IllegalArgumentException("User id cannot be null");
+        }
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
+                .claim(USER_ID_CLAIM, userId)
+                .claim(ROLES_CLAIM, List.copyOf(roles))
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
-    public String extractUsername(String token) {
+    /**
+     * Checks signature and expiry once per distinct token. Empty when the token
+     * is malformed, forged or expired.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached;
+        synchronized (verified) {
+            cached = verified.get(digest);
+            if (cached != null && cached.expiresAt() <= now) {
+                verified.remove(digest);
+                cached = null;
+            }
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Optional.of(cached);
+        }
+
+        VerifiedToken result;
         try {
-            return extractClaims(token).getSubject();
-        } catch (Exception e) {
-            logger.warning("Failed to extract username from token: " + e.getMessage());
-            throw new RuntimeException("Invalid JWT token", e);
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            if (claims.getSubject() == null || claims.getExpiration() == null) {
+                throw new IllegalArgumentException("Token has no subject or expiry");
+            }
+            Number userId = claims.get(USER_ID_CLAIM, Number.class);
+            List<?> roles = claims.get(ROLES_CLAIM, List.class);
+            result = new VerifiedToken(claims.getId(), claims.getSubject(), userId != null ? userId.longValue() : null,
+                    roles != null ? roles.stream().map(String::valueOf).toList() : List.of(),
+                    claims.getExpiration().getTime());
+        } catch (JwtException | IllegalArgumentException e) {
+            rejections.incrementAndGet();
+            logger.warning("Token validation failed: " + e.getMessage());
+            return Optional.empty();
+        }
+        misses.incrementAndGet();
+        synchronized (verified) {
+            verified.put(digest, result);
         }
+        return Optional.of(result);
     }
 
-    private Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /** Lifetime of issued access tokens in milliseconds. */
+    public long expiration() {
+        return expiration;
     }
 
-    public boolean isTokenValid(String token, String username) {
-        try {
-            String extracted = extractUsername(token);
-            return (extracted.equals(username)) && !isTokenExpired(token);
-        } catch (Exception e) {
-            logger.warning("Token validation failed: " + e.getMessage());
-            return false;
+    public int cachedTokens() {
+        synchronized (verified) {
+            return verified.size();
         }
     }
 
-    private boolean isTokenExpired(String token) {
+    private static String digest(String token) {
         try {
-            return extractClaims(token).getExpiration().before(new Date());
-        } catch (Exception e) {
-            logger.warning("Failed to check token expiration: " + e.getMessage());
-            return true; // Consider expired if parsing fails
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.jwt.verifications", hits, AtomicLong::get)
+                .tag("result", "cached").register(registry);
+        FunctionCounter.builder("auth.jwt.verifications", misses, AtomicLong::get)
+                .tag("result", "parsed").register(registry);
+        FunctionCounter.builder("auth.jwt.verifications", rejections, AtomicLong::get)
+                .tag("result", "rejected").register(registry);
+        Gauge.builder("auth.jwt.verified.cache.size", this, JwtUtil::cachedTokens)
+                .register(registry);
+    }
+}
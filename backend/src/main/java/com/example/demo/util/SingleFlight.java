@@ -0,0 +1,55 @@
+package com.example.demo.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Coalesces concurrent calls for the same key into a single execution.
+ *
+ * The first caller for a key runs the call on its own thread; callers that
+ * arrive while it is in flight share its {@link CompletableFuture}, including
+ * any failure. Once the call completes the key is released, so later callers
+ * trigger a new execution.
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public CompletableFuture<V> execute(K key, Callable<V> call) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            created.complete(call.call());
+        } catch (Throwable t) {
+            created.completeExceptionally(t);
+        } finally {
+            inFlight.remove(key, created);
+        }
+        return created;
+    }
+
+    /**
+     * Runs {@link #execute} and waits for the shared result, rethrowing the
+     * original failure rather than the {@link CompletionException} wrapper.
+     */
+    public V await(K key, Callable<V> call) throws Exception {
+        try {
+            return execute(key, call).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.util;
+
+/**
+ * Fixed set of {@link TokenBucket}s shared by hash of the key, so limiting
+ * by an unbounded key space (usernames, client addresses) needs constant
+ * memory. Keys that land on the same stripe share its budget.
+ */
+public class StripedRateLimiter {
+    private final TokenBucket[] stripes;
+    private final int mask;
+
+    public StripedRateLimiter(int stripes, long capacity, long periodNanos) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a positive power of two");
+        }
+        this.stripes = new TokenBucket[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new TokenBucket(capacity, periodNanos);
+        }
+        this.mask = stripes - 1;
+    }
+
+    public boolean tryAcquire(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask].tryAcquire();
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.demo.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary file of recorded price ticks, read through a memory map.
+ *
+ * <pre>
+ * int    magic "TICK"
+ * short  version
+ * long   base timestamp (epoch millis)
+ * short  symbol count, then per symbol: byte length (1-127) + ASCII bytes
+ * int    record count
+ * record count x 14 bytes: int offset millis, short symbol id, long price micros
+ * </pre>
+ *
+ * Fixed-size records keep reads allocation-free: {@link #offsetMillis},
+ * {@link #symbolId} and {@link #priceMicros} read straight from the map.
+ */
+public class TickFile implements AutoCloseable {
+    private static final int MAGIC = 0x5449434B;
+    private static final short VERSION = 1;
+    private static final int RECORD_SIZE = 14;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long baseMillis;
+    private final List<String> symbols;
+    private final int recordCount;
+    private final int recordsStart;
+
+    private TickFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+            throw new IOException("Not a tick file or unsupported version");
+        }
+        this.baseMillis = buffer.getLong();
+        int symbolCount = buffer.getShort();
+        List<String> names = new ArrayList<>(symbolCount);
+        for (int i = 0; i < symbolCount; i++) {
+            int length = buffer.get();
+            if (length <= 0) {
+                throw new IOException("Tick file has a corrupt symbol table");
+            }
+            byte[] name = new byte[length];
+            buffer.get(name);
+            names.add(new String(name, StandardCharsets.US_ASCII));
+        }
+        this.symbols = List.copyOf(names);
+        this.recordCount = buffer.getInt();
+        this.recordsStart = buffer.position();
+        if ((long) recordsStart + (long) recordCount * RECORD_SIZE > buffer.capacity()) {
+            throw new IOException("Tick file is truncated");
+        }
+    }
+
+    public static TickFile open(Path path) throws IOException {
+        return new TickFile(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    public long baseMillis() {
+        return baseMillis;
+    }
+
+    public List<String> symbols() {
+        return symbols;
+    }
+
+    public int recordCount() {
+        return recordCount;
+    }
+
+    public int offsetMillis(int record) {
+        return buffer.getInt(recordsStart + record * RECORD_SIZE);
+    }
+
+    public int symbolId(int record) {
+        return buffer.getShort(recordsStart + record * RECORD_SIZE + 4);
+    }
+
+    public long priceMicros(int record) {
+        return buffer.getLong(recordsStart + record * RECORD_SIZE + 6);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Streams ticks into a new file. The record count is patched into the
+     * header on {@link #close()}, so any number of ticks can be written
+     * without holding them in memory.
+     */
+    public static class Writer implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final long countPosition;
+        private int recordCount;
+
+        public Writer(Path path, long baseMillis, List<String> symbols) throws IOException {
+            if (symbols.size() > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many symbols for a tick file");
+            }
+            for (String symbol : symbols) {
+                // The length is stored in a signed byte
+                if (symbol.isEmpty() || symbol.length() > Byte.MAX_VALUE) {
+                    throw new IllegalArgumentException("Symbol must be 1-127 characters: " + symbol);
+                }
+            }
+            // Header: magic, version, base, symbol count, names (up to 1 + 127 bytes each), record count
+            int headerSize = 4 + 2 + 8 + 2 + symbols.size() * 128 + 4;
+            this.buffer = ByteBuffer.allocate(Math.max(RECORD_SIZE * 4096, headerSize));
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            buffer.putInt(MAGIC).putShort(VERSION).putLong(baseMillis).putShort((short) symbols.size());
+            for (String symbol : symbols) {
+                byte[] name = symbol.getBytes(StandardCharsets.US_ASCII);
+                buffer.put((byte) name.length).put(name);
+            }
+            this.countPosition = buffer.position();
+            buffer.putInt(0);
+        }
+
+        public void write(int offsetMillis, int symbolId, long priceMicros) throws IOException {
+            if (buffer.remaining() < RECORD_SIZE) {
+                flush();
+            }
+            buffer.putInt(offsetMillis).putShort((short) symbolId).putLong(priceMicros);
+            recordCount++;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            channel.write(ByteBuffer.allocate(4).putInt(0, recordCount), countPosition);
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Raw price observations for one ticker, kept in fixed-size chunks. Each
+ * chunk stores its first timestamp once and the rest as {@code int}
+ * millisecond deltas from it, with prices as fixed-point micro-units, so a
+ * tick costs 12 bytes. Retention drops whole chunks. Not thread-safe.
+ */
+public class TickLog {
+    private static final int CHUNK_SIZE = 1024;
+
+    @FunctionalInterface
+    public interface TickConsumer {
+        void accept(long timestamp, long micros);
+    }
+
+    private static final class Chunk {
+        final long base;
+        final int[] deltas = new int[CHUNK_SIZE];
+        final long[] micros = new long[CHUNK_SIZE];
+        int size;
+
+        Chunk(long base) {
+            this.base = base;
+        }
+
+        long timestamp(int index) {
+            return base + deltas[index];
+        }
+
+        long last() {
+            return timestamp(size - 1);
+        }
+    }
+
+    private final Deque<Chunk> chunks = new ArrayDeque<>();
+    private long count;
+
+    public void append(long timestamp, long micros) {
+        Chunk chunk = chunks.peekLast();
+        if (chunk != null && timestamp < chunk.last()) {
+            // Keep the log ordered: late observations take the latest timestamp
+            timestamp = chunk.last();
+        }
+        if (chunk == null || chunk.size == CHUNK_SIZE || timestamp - chunk.base > Integer.MAX_VALUE) {
+            chunk = new Chunk(timestamp);
+            chunks.addLast(chunk);
+        }
+        chunk.deltas[chunk.size] = (int) (timestamp - chunk.base);
+        chunk.micros[chunk.size] = micros;
+        chunk.size++;
+        count++;
+    }
+
+    /** Drops chunks whose newest tick is older than {@code cutoff}. */
+    public void trimBefore(long cutoff) {
+        while (!chunks.isEmpty() && chunks.peekFirst().last() < cutoff) {
+            count -= chunks.removeFirst().size;
+        }
+    }
+
+    /** Visits ticks within [fromMillis, toMillis) in time order. */
+    public void forEach(long fromMillis, long toMillis, TickConsumer consumer) {
+        for (Chunk chunk : chunks) {
+            if (chunk.size == 0 || chunk.last() < fromMillis) {
+                continue;
+            }
+            if (chunk.base >= toMillis) {
+                break;
+            }
+            for (int i = 0; i < chunk.size; i++) {
+                long timestamp = chunk.timestamp(i);
+                if (timestamp >= toMillis) {
+                    return;
+                }
+                if (timestamp >= fromMillis) {
+                    consumer.accept(timestamp, chunk.micros[i]);
+                }
+            }
+        }
+    }
+
+    public long size() {
+        return count;
+    }
+
+    /** Timestamp of the earliest retained tick, or {@code Long.MAX_VALUE} when empty. */
+    public long firstTimestamp() {
+        Chunk chunk = chunks.peekFirst();
+        return chunk == null ? Long.MAX_VALUE : chunk.base;
+    }
+}
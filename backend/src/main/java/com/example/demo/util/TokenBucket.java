@@ -0,0 +1,60 @@
+package com.example.demo.util;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket that refills continuously at {@code capacity} tokens per
+ * {@code periodNanos}. A full bucket allows a burst of {@code capacity} calls.
+ */
+public class TokenBucket {
+    private final long capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoClock;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(long capacity, long periodNanos) {
+        this(capacity, periodNanos, System::nanoTime);
+    }
+
+    /** Reads time from {@code nanoClock}, a {@link System#nanoTime()} stand-in for tests. */
+    public TokenBucket(long capacity, long periodNanos, LongSupplier nanoClock) {
+        if (capacity <= 0 || periodNanos <= 0) {
+            throw new IllegalArgumentException("Token bucket capacity and period must be positive");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = (double) capacity / periodNanos;
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /** Nanoseconds until one token is available, zero if one is available now. */
+    public synchronized long nanosUntilAvailable() {
+        refill();
+        if (tokens >= 1) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    public synchronized double available() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.bench;
+
+import com.example.demo.dto.CompanyOverview;
+import com.example.demo.services.AlphaVantageResponseParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous String + JsonNode tree handling of Alpha Vantage
+ * responses with the streaming {@link AlphaVantageResponseParser}.
+ *
+ * Run with:
+ * <pre>
+ * mvn test-compile
+ * java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *     com.example.demo.bench.AlphaVantageParsingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlphaVantageParsingBenchmark {
+    private static final String GLOBAL_QUOTE = """
+            {
+                "Global Quote": {
+                    "01. symbol": "IBM",
+                    "02. open": "287.1000",
+                    "03. high": "289.9500",
+                    "04. low": "286.3100",
+                    "05. price": "288.3700",
+                    "06. volume": "3401218",
+                    "07. latest trading day": "2025-10-03",
+                    "08. previous close": "287.0400",
+                    "09. change": "1.3300",
+                    "10. change percent": "0.4634%"
+                }
+            }
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] globalQuote;
+    private byte[] overview;
+
+    @Setup
+    public void setUp() {
+        globalQuote = GLOBAL_QUOTE.getBytes(StandardCharsets.UTF_8);
+
+        // OVERVIEW responses carry ~50 fields and a long description before the ones we read
+        StringBuilder body = new StringBuilder("{\"Symbol\": \"IBM\", \"AssetType\": \"Common Stock\",");
+        body.append("\"Description\": \"").append("International Business Machines Corporation. ".repeat(40))
+                .append("\",");
+        body.append("\"Name\": \"International Business Machines\",");
+        body.append("\"Sector\": \"TECHNOLOGY\", \"Industry\": \"COMPUTER & OFFICE EQUIPMENT\"");
+        for (int i = 0; i < 45; i++) {
+            body.append(", \"Metric").append(i).append("\": \"").append(1000 + i).append(".25\"");
+        }
+        body.append('}');
+        overview = body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public double globalQuoteTree() throws Exception {
+        String response = new String(globalQuote, StandardCharsets.UTF_8);
+        if (response.contains("Error Message") || response.contains("Invalid API call")) {
+            throw new IllegalStateException();
+        }
+        JsonNode root = objectMapper.readTree(response);
+        return root.get("Global Quote").get("05. price").asDouble();
+    }
+
+    @Benchmark
+    public double globalQuoteStreaming() throws Exception {
+        return AlphaVantageResponseParser.parseGlobalQuote(new ByteArrayInputStream(globalQuote), "IBM").price();
+    }
+
+    @Benchmark
+    public CompanyOverview overviewTree() throws Exception {
+        String response = new String(overview, StandardCharsets.UTF_8);
+        if (response.contains("Error Message")) {
+            throw new IllegalStateException();
+        }
+        JsonNode root = objectMapper.readTree(response);
+        return new CompanyOverview(root.get("Name").asText(), root.get("Sector").asText(),
+                root.get("Industry").asText());
+    }
+
+    @Benchmark
+    public CompanyOverview overviewStreaming() throws Exception {
+        return AlphaVantageResponseParser.parseOverview(new ByteArrayInputStream(overview), "IBM");
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(AlphaVantageParsingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.bench;
+
+import com.example.demo.dto.PortfolioResponse;
+import com.example.demo.dto.Quote;
+import com.example.demo.entity.Portfolio;
+import com.example.demo.entity.PortfolioAsset;
+import com.example.demo.entity.User;
+import com.example.demo.util.FixedPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PortfolioResponse#fromEntity} on large portfolios, with half of the
+ * assets repriced from quotes.
+ *
+ * Run with {@code -prof gc} to see allocation per operation:
+ * <pre>
+ * mvn test-compile
+ * java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *     org.openjdk.jmh.Main PortfolioResponseBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PortfolioResponseBenchmark {
+    @Param({ "1000", "10000" })
+    public int assets;
+
+    private Portfolio portfolio;
+    private Map<String, Quote> quotes;
+
+    @Setup
+    public void setUp() {
+        User user = new User();
+        user.setId(1L);
+        portfolio = new Portfolio();
+        portfolio.setId(1L);
+        portfolio.setName("Large");
+        portfolio.setUser(user);
+        quotes = new HashMap<>();
+        for (int i = 0; i < assets; i++) {
+            PortfolioAsset asset = new PortfolioAsset();
+            asset.setId((long) i);
+            asset.setTicker("T" + i);
+            asset.setQuantityMicros(FixedPoint.toMicros(1.5 + i % 97));
+            asset.setCurrentPriceMicros(FixedPoint.toMicros(10.01 + i % 503));
+            portfolio.getAssets().add(asset);
+            if (i % 2 == 0) {
+                quotes.put("T" + i, new Quote("T" + i, 11.37 + i % 211, Quote.Status.CACHED, 0, null));
+            }
+        }
+    }
+
+    @Benchmark
+    public PortfolioResponse fromEntity() {
+        return PortfolioResponse.fromEntity(portfolio, quotes);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(PortfolioResponseBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.config;
+
+import com.example.demo.entity.Portfolio;
+import com.example.demo.entity.User;
+import com.example.demo.repo.PortfolioRepository;
+import com.example.demo.repo.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class FixedPointColumnMigrationTest {
+
+    @Autowired
+    private FixedPointColumnMigration migration;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Test
+    void legacyValuesMoveToMicrosAndTheLegacyColumnsAreDropped() {
+        Long portfolioId = createPortfolio().getId();
+        // The pre-micro-unit columns as an old release left them: quantity NOT NULL, price nullable
+        jdbcTemplate.execute("ALTER TABLE portfolio_assets ADD COLUMN quantity DOUBLE PRECISION DEFAULT 0 NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE portfolio_assets ADD COLUMN current_price DOUBLE PRECISION");
+        jdbcTemplate.execute("ALTER TABLE portfolio_snapshots ADD COLUMN total_value DOUBLE PRECISION DEFAULT 0 NOT NULL");
+        try {
+            // Only the legacy columns are written; the micro-unit columns take their default
+            jdbcTemplate.update("INSERT INTO portfolio_assets (id, portfolio_id, ticker, quantity, current_price, added_at) "
+                    + "VALUES (NEXT VALUE FOR portfolio_assets_seq, ?, 'OLD', 12.5, 150.25, CURRENT_TIMESTAMP)",
+                    portfolioId);
+            jdbcTemplate.update("INSERT INTO portfolio_assets (id, portfolio_id, ticker, quantity, added_at) "
+                    + "VALUES (NEXT VALUE FOR portfolio_assets_seq, ?, 'UNPRICED', 3, CURRENT_TIMESTAMP)",
+                    portfolioId);
+            jdbcTemplate.update("INSERT INTO portfolio_snapshots "
+                    + "(id, portfolio_id, snapshot_date, total_value, asset_count, created_at) VALUES "
+                    + "(NEXT VALUE FOR portfolio_snapshots_seq, ?, CURRENT_DATE, 1878.125, 2, CURRENT_TIMESTAMP)",
+                    portfolioId);
+
+            migration.migrate();
+
+            assertEquals(12_500_000L, micros("quantity_micros", "portfolio_assets", portfolioId, "ticker = 'OLD'"));
+            assertEquals(150_250_000L, micros("current_price_micros", "portfolio_assets", portfolioId, "ticker = 'OLD'"));
+            assertEquals(0L, micros("current_price_micros", "portfolio_assets", portfolioId, "ticker = 'UNPRICED'"));
+            assertEquals(1_878_125_000L, micros("total_value_micros", "portfolio_snapshots", portfolioId, "1 = 1"));
+            assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.columns "
+                    + "WHERE LOWER(table_name) IN ('portfolio_assets', 'portfolio_snapshots') "
+                    + "AND LOWER(column_name) IN ('quantity', 'current_price', 'total_value')", Integer.class));
+
+            // Nothing left to move on the next start
+            migration.migrate();
+        } finally {
+            jdbcTemplate.update("DELETE FROM portfolio_assets WHERE portfolio_id = ?", portfolioId);
+            jdbcTemplate.update("DELETE FROM portfolio_snapshots WHERE portfolio_id = ?", portfolioId);
+        }
+    }
+
+    private Long micros(String column, String table, Long portfolioId, String condition) {
+        return jdbcTemplate.queryForObject("SELECT " + column + " FROM " + table
+                + " WHERE portfolio_id = ? AND " + condition, Long.class, portfolioId);
+    }
+
+    private Portfolio createPortfolio() {
+        User user = new User();
+        user.setUsername("legacy-" + UUID.randomUUID().toString().substring(0, 8));
+        user.setPassword("password");
+        user.setEmail(user.getUsername() + "@example.com");
+        user = userRepository.save(user);
+        Portfolio portfolio = new Portfolio();
+        portfolio.setName("Legacy");
+        portfolio.setUser(user);
+        return portfolioRepository.save(portfolio);
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo.controller;
+
+import com.example.demo.event.UserChangedEvent;
+import com.jayway.jsonpath.JsonPath;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Load check for the authentication hot path: repeated authenticated reads
+ * must not query the users table on every request. Tokens that fail
+ * verification must still be refused by {@code /verify}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthenticationQueryCountTest {
+    private static final int REQUESTS = 500;
+    private static final String[] TICKERS = { "AAPL", "MSFT", "SPY" };
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void readEndpointsRunNoStatementsWithIssuedTokens() throws Exception {
+        String username = "load-" + UUID.randomUUID().toString().substring(0, 8);
+        String body = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\": \"" + username + "\", \"password\": \"password\", \"email\": \""
+                                + username + "@example.com\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String token = "Bearer " + JsonPath.read(body, "$.token");
+
+        statistics.clear();
+        for (int i = 0; i < REQUESTS; i++) {
+            mockMvc.perform(get("/api/stocks/" + TICKERS[i % TICKERS.length] + "/history")
+                            .header("Authorization", token))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/api/auth/verify").header("Authorization", token))
+                    .andExpect(status().isOk());
+        }
+
+        assertEquals(0, statistics.getPrepareStatementCount(),
+                "statements over " + 2 * REQUESTS + " authenticated reads");
+    }
+
+    @Test
+    void tokensWithoutUserIdLoadThePrincipalOnceUntilTheUserChanges() throws Exception {
+        String username = "legacy-" + UUID.randomUUID().toString().substring(0, 8);
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\": \"" + username + "\", \"password\": \"password\", \"email\": \""
+                                + username + "@example.com\"}"))
+                .andExpect(status().isCreated());
+        // Shape of the tokens issued before the user id was embedded
+        String token = "Bearer " + Jwts.builder()
+                .subject(username)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        assertEquals(1, statementsFor(token, 1));
+        assertEquals(0, statementsFor(token, REQUESTS));
+
+        eventPublisher.publishEvent(new UserChangedEvent(username));
+        assertEquals(1, statementsFor(token, REQUESTS));
+    }
+
+    @Test
+    void verifyRejectsExpiredAndGarbageTokens() throws Exception {
+        String expired = "Bearer " + Jwts.builder()
+                .subject("expired-user")
+                .claim("uid", 1L)
+                .issuedAt(new Date(System.currentTimeMillis() - 120_000))
+                .expiration(new Date(System.currentTimeMillis() - 60_000))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        mockMvc.perform(get("/api/auth/verify").header("Authorization", expired))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.valid").value(false));
+        mockMvc.perform(get("/api/auth/verify").header("Authorization", "Bearer not-a-jwt"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.valid").value(false));
+        mockMvc.perform(get("/api/auth/verify"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void onlyHealthIsOpenToAnonymousCallers() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/metrics/stock.cache.size")).andExpect(status().isUnauthorized());
+    }
+
+    private long statementsFor(String token, int requests) throws Exception {
+        statistics.clear();
+        for (int i = 0; i < requests; i++) {
+            mockMvc.perform(get("/api/auth/verify").header("Authorization", token))
+                    .andExpect(status().isOk());
+        }
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.AssetRow;
+import com.example.demo.entity.Portfolio;
+import com.example.demo.entity.User;
+import com.example.demo.repo.PortfolioAssetRepository;
+import com.example.demo.repo.PortfolioRepository;
+import com.example.demo.repo.UserRepository;
+import com.example.demo.util.FixedPoint;
+import com.example.demo.util.JwtUtil;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class HoldingsImportTest {
+    private static final int TICKERS = 120;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Autowired
+    private PortfolioAssetRepository assetRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void csvImportMergesDuplicatesAndBatchesInserts() throws Exception {
+        User user = createUser();
+        Portfolio portfolio = createPortfolio(user);
+
+        StringBuilder csv = new StringBuilder("Symbol,Description,Shares\n");
+        for (int i = 0; i < TICKERS; i++) {
+            csv.append(String.format("t%03d,\"Company %d, Inc.\",10%n", i, i));
+        }
+        // Duplicates merge into the first row for the ticker; bad rows are reported, not fatal
+        csv.append("T000,Company 0,\"1,000\"\n");
+        csv.append("T001,Company 1,-5\n");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(post("/api/portfolios/" + portfolio.getId() + "/assets/import")
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken(user.getId(), user.getUsername()))
+                        .contentType("text/csv")
+                        .content(csv.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsRead").value(TICKERS + 2))
+                .andExpect(jsonPath("$.rowsRejected").value(1))
+                .andExpect(jsonPath("$.holdingsOpened").value(TICKERS))
+                .andExpect(jsonPath("$.holdingsUpdated").value(0));
+
+        // One holding and one BUY ledger entry per ticker
+        assertEquals(2 * TICKERS, statistics.getEntityInsertCount());
+        // 240 inserts go out in batches of 50 with pooled ids, not one statement per row
+        assertTrue(statistics.getPrepareStatementCount() < 20,
+                "expected batched writes, got " + statistics.getPrepareStatementCount() + " statements");
+
+        Map<String, Double> quantities = assetRepository.findRowsByPortfolioIdIn(List.of(portfolio.getId())).stream()
+                .collect(Collectors.toMap(AssetRow::ticker, row -> FixedPoint.toDouble(row.quantityMicros())));
+        assertEquals(TICKERS, quantities.size());
+        assertEquals(1010.0, quantities.get("T000"), 1e-9);
+        assertEquals(10.0, quantities.get("T001"), 1e-9);
+    }
+
+    @Test
+    void jsonImportIncrementsExistingHoldings() throws Exception {
+        User user = createUser();
+        Portfolio portfolio = createPortfolio(user);
+        String token = "Bearer " + jwtUtil.generateToken(user.getId(), user.getUsername());
+        String body = "[{\"ticker\": \"aapl\", \"quantity\": 2}, {\"symbol\": \"MSFT\", \"shares\": \"3\"}]";
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/portfolios/" + portfolio.getId() + "/assets/import")
+                            .header("Authorization", token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.holdingsOpened").value(i == 0 ? 2 : 0))
+                    .andExpect(jsonPath("$.holdingsUpdated").value(i == 0 ? 0 : 2));
+        }
+
+        Map<String, Double> quantities = assetRepository.findRowsByPortfolioIdIn(List.of(portfolio.getId())).stream()
+                .collect(Collectors.toMap(AssetRow::ticker, row -> FixedPoint.toDouble(row.quantityMicros())));
+        assertEquals(Map.of("AAPL", 4.0, "MSFT", 6.0), quantities);
+    }
+
+    @Test
+    void jsonImportRejectsMalformedItemsWithoutLosingItsPlace() throws Exception {
+        User user = createUser();
+        Portfolio portfolio = createPortfolio(user);
+        // Structured values and non-object items are rejected one by one; parsing carries on after them
+        String body = "[{\"ticker\": {\"symbol\": \"AAPL\"}, \"quantity\": 1},"
+                + " {\"ticker\": \"MSFT\", \"quantity\": [1, 2], \"note\": {\"a\": [1]}},"
+                + " 5, [\"MSFT\", 1], {\"ticker\": \"VTI\", \"quantity\": 2}]";
+
+        mockMvc.perform(post("/api/portfolios/" + portfolio.getId() + "/assets/import")
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken(user.getId(), user.getUsername()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsRead").value(5))
+                .andExpect(jsonPath("$.rowsRejected").value(4))
+                .andExpect(jsonPath("$.errors[2]").value("item 2: expected a {\"ticker\", \"quantity\"} object"))
+                .andExpect(jsonPath("$.holdingsOpened").value(1));
+
+        Map<String, Double> quantities = assetRepository.findRowsByPortfolioIdIn(List.of(portfolio.getId())).stream()
+                .collect(Collectors.toMap(AssetRow::ticker, row -> FixedPoint.toDouble(row.quantityMicros())));
+        assertEquals(Map.of("VTI", 2.0), quantities);
+    }
+
+    @Test
+    void truncatedJsonImportIsRejected() throws Exception {
+        User user = createUser();
+        Portfolio portfolio = createPortfolio(user);
+
+        mockMvc.perform(post("/api/portfolios/" + portfolio.getId() + "/assets/import")
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken(user.getId(), user.getUsername()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"ticker\": \"VTI\", \"quantity\": 2}"))
+                .andExpect(status().isBadRequest());
+        assertTrue(assetRepository.findRowsByPortfolioIdIn(List.of(portfolio.getId())).isEmpty());
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setUsername("import-" + UUID.randomUUID().toString().substring(0, 8));
+        user.setPassword("password");
+        user.setEmail(user.getUsername() + "@example.com");
+        return userRepository.save(user);
+    }
+
+    private Portfolio createPortfolio(User user) {
+        Portfolio portfolio = new Portfolio();
+        portfolio.setName("Import");
+        portfolio.setUser(user);
+        return portfolioRepository.save(portfolio);
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.CostBasisMethod;
+import com.example.demo.entity.Portfolio;
+import com.example.demo.entity.User;
+import com.example.demo.repo.LedgerTransactionRepository;
+import com.example.demo.repo.PortfolioAssetRepository;
+import com.example.demo.repo.PortfolioRepository;
+import com.example.demo.repo.PositionSnapshotRepository;
+import com.example.demo.repo.UserRepository;
+import com.example.demo.services.TaxLotPosition;
+import com.example.demo.services.TransactionLedger;
+import com.example.demo.util.FixedPoint;
+import com.example.demo.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class LedgerTransactionTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Autowired
+    private PortfolioAssetRepository assetRepository;
+
+    @Autowired
+    private LedgerTransactionRepository transactionRepository;
+
+    @Autowired
+    private PositionSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private Portfolio portfolio;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("ledger-" + UUID.randomUUID().toString().substring(0, 8));
+        user.setPassword("password");
+        user.setEmail(user.getUsername() + "@example.com");
+        userRepository.save(user);
+        token = "Bearer " + jwtUtil.generateToken(user.getId(), user.getUsername());
+
+        portfolio = new Portfolio();
+        portfolio.setName("Ledger");
+        portfolio.setUser(user);
+        portfolio.setCostBasisMethod(CostBasisMethod.LIFO);
+        portfolioRepository.save(portfolio);
+    }
+
+    @Test
+    void tradesUpdateHoldingAndPosition() throws Exception {
+        record("BUY", "aapl", 10.0, 100.0).andExpect(status().isCreated());
+        record("BUY", "AAPL", 10.0, 120.0).andExpect(status().isCreated());
+        record("SELL", "AAPL", 5.0, 130.0)
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.method").value("LIFO"))
+                .andExpect(jsonPath("$.quantity").value(15.0))
+                .andExpect(jsonPath("$.realizedPnl").value(50.0))
+                .andExpect(jsonPath("$.costBasis").value(1600.0));
+        record("DIVIDEND", "AAPL", null, 0.5).andExpect(jsonPath("$.dividends").value(7.5));
+        record("SPLIT", "AAPL", 2.0, null).andExpect(jsonPath("$.quantity").value(30.0));
+
+        assertEquals(30 * FixedPoint.SCALE, assetRepository.findByPortfolioId(portfolio.getId()).get(0).getQuantityMicros());
+
+        // Unrealised P&L is marked at the mock provider's AAPL price
+        mockMvc.perform(get("/api/portfolios/" + portfolio.getId() + "/positions").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].ticker").value("AAPL"))
+                .andExpect(jsonPath("$[0].unrealizedPnl").value(30 * 150.25 - 1600.0));
+    }
+
+    @Test
+    void sellingMoreThanHeldIsRejected() throws Exception {
+        record("BUY", "MSFT", 2.0, 300.0).andExpect(status().isCreated());
+        record("SELL", "MSFT", 3.0, 310.0).andExpect(status().isBadRequest());
+        record("SELL", "MSFT", 2.0, 310.0).andExpect(jsonPath("$.quantity").value(0.0));
+
+        assertTrue(assetRepository.findByPortfolioId(portfolio.getId()).isEmpty());
+    }
+
+    @Test
+    void invalidSplitRatiosChangeNothing() throws Exception {
+        record("BUY", "VTI", 10.0, 200.0).andExpect(status().isCreated());
+
+        record("SPLIT", "VTI", 0.0, null).andExpect(status().isBadRequest());
+        record("SPLIT", "VTI", -2.0, null).andExpect(status().isBadRequest());
+        // Overflows to Infinity when parsed, which @Positive lets through
+        mockMvc.perform(post("/api/portfolios/" + portfolio.getId() + "/transactions")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"type\": \"SPLIT\", \"ticker\": \"VTI\", \"quantity\": 1e400}"))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(10 * FixedPoint.SCALE, assetRepository.findByPortfolioId(portfolio.getId()).get(0).getQuantityMicros());
+        mockMvc.perform(get("/api/portfolios/" + portfolio.getId() + "/positions").header("Authorization", token))
+                .andExpect(jsonPath("$[0].quantity").value(10.0))
+                .andExpect(jsonPath("$[0].costBasis").value(2000.0));
+    }
+
+    @Test
+    void removingAHoldingSellsAtTheCurrentQuote() throws Exception {
+        // Stored at the purchase price, well below the mock provider's MSFT price
+        record("BUY", "MSFT", 4.0, 200.0).andExpect(status().isCreated());
+        mockMvc.perform(delete("/api/portfolios/" + portfolio.getId() + "/assets/msft").header("Authorization", token))
+                .andExpect(status().isOk());
+
+        assertTrue(assetRepository.findByPortfolioId(portfolio.getId()).isEmpty());
+        mockMvc.perform(get("/api/portfolios/" + portfolio.getId() + "/positions").header("Authorization", token))
+                .andExpect(jsonPath("$[0].quantity").value(0.0))
+                .andExpect(jsonPath("$[0].realizedPnl").value(4 * (300.75 - 200.0)));
+    }
+
+    @Test
+    void positionsAreRebuiltFromSnapshotPlusTail() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            record("BUY", "SPY", 1.0, 400.0 + i).andExpect(status().isCreated());
+        }
+        TransactionLedger ledger = new TransactionLedger(transactionRepository, snapshotRepository, transactionManager, 3);
+
+        TaxLotPosition first = ledger.positions(portfolio.getId(), CostBasisMethod.LIFO).get("SPY");
+        record("SELL", "SPY", 2.0, 410.0).andExpect(status().isCreated());
+        TaxLotPosition second = ledger.positions(portfolio.getId(), CostBasisMethod.LIFO).get("SPY");
+
+        // The first read snapshotted the five buys; the second applied only the sell on top
+        assertEquals(5.0, first.quantity(), 1e-9);
+        assertEquals(1, second.appliedSinceSnapshot());
+        assertEquals(3.0, second.quantity(), 1e-9);
+        assertEquals((410.0 - 404.0) + (410.0 - 403.0), second.realizedPnl(), 1e-9);
+    }
+
+    private ResultActions record(String type, String ticker, Double quantity, Double price) throws Exception {
+        String body = String.format("{\"type\": \"%s\", \"ticker\": \"%s\", \"quantity\": %s, \"price\": %s}",
+                type, ticker, quantity, price);
+        return mockMvc.perform(post("/api/portfolios/" + portfolio.getId() + "/transactions")
+                .header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+}
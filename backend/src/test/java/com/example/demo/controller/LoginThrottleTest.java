@@ -0,0 +1,69 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.User;
+import com.example.demo.repo.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class LoginThrottleTest {
+    // auth.throttle.per-username default
+    private static final int ATTEMPTS_PER_USERNAME = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void usernameBudgetRefusesFurtherAttemptsWith429() throws Exception {
+        User user = createUser(new BCryptPasswordEncoder(4).encode("password"));
+
+        for (int i = 0; i < ATTEMPTS_PER_USERNAME; i++) {
+            login(user.getUsername(), "wrong-password", status().isBadRequest());
+        }
+        // Refused before the hash is checked, so even the right password is turned away
+        login(user.getUsername(), "password", status().isTooManyRequests());
+    }
+
+    @Test
+    void loginRehashesPasswordsMadeWithAnotherCost() throws Exception {
+        User user = createUser(new BCryptPasswordEncoder(5).encode("password"));
+
+        login(user.getUsername(), "password", status().isOk());
+
+        // Tests configure auth.bcrypt.strength=4
+        String stored = userRepository.findByUsername(user.getUsername()).orElseThrow().getPassword();
+        assertTrue(stored.startsWith("$2a$04$"), stored);
+        login(user.getUsername(), "password", status().isOk());
+    }
+
+    private void login(String username, String password, ResultMatcher expected) throws Exception {
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\": \"" + username + "\", \"password\": \"" + password + "\"}"))
+                .andExpect(expected);
+    }
+
+    private User createUser(String passwordHash) {
+        User user = new User();
+        user.setUsername("login-" + UUID.randomUUID().toString().substring(0, 8));
+        user.setPassword(passwordHash);
+        user.setEmail(user.getUsername() + "@example.com");
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.Portfolio;
+import com.example.demo.entity.User;
+import com.example.demo.repo.PortfolioRepository;
+import com.example.demo.repo.UserRepository;
+import com.example.demo.services.PortfolioService;
+import com.example.demo.services.QuoteCache;
+import com.example.demo.util.JwtUtil;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional portfolio reads: an unchanged portfolio answers If-None-Match
+ * with 304 after a single revision lookup, while holding changes and price
+ * ticks produce a new entity tag.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class PortfolioETagTest {
+    // Unknown to the mock quote provider, so no other test prices it
+    private static final String TICKER = "ETAG";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private QuoteCache quoteCache;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void unchangedPortfolioIsNotModifiedUntilAHoldingChanges() throws Exception {
+        User user = createUser();
+        Portfolio portfolio = createPortfolio(user);
+        portfolioService.addAsset(portfolio.getId(), "AAPL", 1.0, user.getId());
+        String path = "/api/portfolios/" + portfolio.getId();
+
+        String etag = fetch(path, user, null).getResponse().getHeader("ETag");
+        assertNotNull(etag);
+        // Weak: the body's price statuses may age without a new tag
+        assertTrue(etag.startsWith("W/\""), etag);
+
+        statistics.clear();
+        mockMvc.perform(get(path)
+                        .header("Authorization", "Bearer " + token(user))
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        // Only the revision lookup: no asset rows and no response built
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        portfolioService.addAsset(portfolio.getId(), "AAPL", 1.0, user.getId());
+        String changed = fetch(path, user, etag).getResponse().getHeader("ETag");
+        assertNotEquals(etag, changed);
+    }
+
+    @Test
+    void priceTickChangesTheListTag() throws Exception {
+        User user = createUser();
+        Portfolio portfolio = createPortfolio(user);
+        portfolioService.addAsset(portfolio.getId(), TICKER, 1.0, user.getId());
+
+        String etag = fetch("/api/portfolios", user, null).getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/portfolios")
+                        .header("Authorization", "Bearer " + token(user))
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        quoteCache.put(TICKER, 101.5);
+        String repriced = fetch("/api/portfolios", user, etag).getResponse().getHeader("ETag");
+        assertNotEquals(etag, repriced);
+    }
+
+    private MvcResult fetch(String path, User user, String ifNoneMatch) throws Exception {
+        var request = get(path).header("Authorization", "Bearer " + token(user));
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    private String token(User user) {
+        return jwtUtil.generateToken(user.getId(), user.getUsername());
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setUsername("etag-" + UUID.randomUUID().toString().substring(0, 8));
+        user.setPassword("password");
+        user.setEmail(user.getUsername() + "@example.com");
+        return userRepository.save(user);
+    }
+
+    private Portfolio createPortfolio(User user) {
+        Portfolio portfolio = new Portfolio();
+        portfolio.setName("Portfolio");
+        portfolio.setUser(user);
+        return portfolioRepository.save(portfolio);
+    }
+}
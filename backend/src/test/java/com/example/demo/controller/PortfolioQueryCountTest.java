@@ -0,0 +1,183 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.Portfolio;
+import com.example.demo.entity.PortfolioAsset;
+import com.example.demo.entity.User;
+import com.example.demo.repo.PortfolioRepository;
+import com.example.demo.repo.UserRepository;
+import com.example.demo.services.PortfolioService;
+import com.example.demo.util.FixedPoint;
+import com.example.demo.util.JwtUtil;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the portfolio read paths against N+1 loading by counting the SQL
+ * statements Hibernate prepares per request, and checks that ownership is
+ * enforced in the query itself. Tokens carry the user id, so the JWT filter
+ * adds no statements of its own.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class PortfolioQueryCountTest {
+    // Prices served by the mock quote provider used in tests
+    private static final double MOCK_AAPL = 150.25;
+    private static final double MOCK_MSFT = 300.75;
+    private static final String[] TICKERS = { "AAPL", "MSFT", "GOOGL", "AMZN", "TSLA", "META", "NVDA", "SPY", "QQQ", "VTI" };
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void portfolioListRunsConstantStatementsRegardlessOfPortfolioCount() throws Exception {
+        User small = createUser();
+        createPortfolio(small, 3);
+        User large = createUser();
+        for (int i = 0; i < 20; i++) {
+            createPortfolio(large, 3);
+        }
+
+        long smallCount = statementsFor("/api/portfolios", small);
+        long largeCount = statementsFor("/api/portfolios", large);
+
+        assertEquals(smallCount, largeCount);
+        // The revision lookup behind the ETag, then the portfolios and their assets
+        assertTrue(largeCount <= 3, "expected at most 3 statements, got " + largeCount);
+    }
+
+    @Test
+    void portfolioDetailRunsConstantStatementsRegardlessOfAssetCount() throws Exception {
+        User user = createUser();
+        Portfolio small = createPortfolio(user, 1);
+        Portfolio large = createPortfolio(user, TICKERS.length);
+
+        long smallCount = statementsFor("/api/portfolios/" + small.getId(), user);
+        long largeCount = statementsFor("/api/portfolios/" + large.getId(), user);
+
+        assertEquals(smallCount, largeCount);
+        // The revision lookup behind the ETag, then the portfolios and their assets
+        assertTrue(largeCount <= 3, "expected at most 3 statements, got " + largeCount);
+    }
+
+    @Test
+    void summaryListingPagesByKeysetWithoutAssetRows() throws Exception {
+        User user = createUser();
+        for (int i = 0; i < 5; i++) {
+            // Through the service so the valuation read model sees the holdings
+            Portfolio portfolio = createPortfolio(user, 0);
+            portfolioService.addAsset(portfolio.getId(), "AAPL", 1.0, user.getId());
+            portfolioService.addAsset(portfolio.getId(), "MSFT", 2.0, user.getId());
+        }
+        String token = jwtUtil.generateToken(user.getId(), user.getUsername());
+
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = "";
+        do {
+            statistics.clear();
+            String body = mockMvc.perform(get("/api/portfolios/summary?limit=2" + cursor)
+                            .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[0].assetCount").value(2))
+                    .andExpect(jsonPath("$.items[0].totalValue").value(MOCK_AAPL + 2 * MOCK_MSFT))
+                    .andExpect(jsonPath("$.items[0].assets").doesNotExist())
+                    .andReturn().getResponse().getContentAsString();
+            // Only the page; totals come from the valuation read model
+            assertEquals(1, statistics.getPrepareStatementCount());
+
+            Integer next = JsonPath.read(body, "$.nextCursor");
+            pageSizes.add(JsonPath.<List<?>>read(body, "$.items").size());
+            cursor = next == null ? null : "&after=" + next;
+        } while (cursor != null);
+
+        assertEquals(List.of(2, 2, 1), pageSizes);
+    }
+
+    @Test
+    void otherUsersPortfolioIsNotFoundInOneQuery() throws Exception {
+        User owner = createUser();
+        Portfolio portfolio = createPortfolio(owner, 2);
+        User intruder = createUser();
+        String token = jwtUtil.generateToken(intruder.getId(), intruder.getUsername());
+
+        statistics.clear();
+        mockMvc.perform(delete("/api/portfolios/" + portfolio.getId() + "/assets/AAPL")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isBadRequest());
+
+        // Only the owner-scoped asset lookup; nothing is deleted
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityDeleteCount());
+    }
+
+    private long statementsFor(String path, User user) throws Exception {
+        String token = jwtUtil.generateToken(user.getId(), user.getUsername());
+        statistics.clear();
+        mockMvc.perform(get(path).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setUsername("user-" + UUID.randomUUID().toString().substring(0, 8));
+        user.setPassword("password");
+        user.setEmail(user.getUsername() + "@example.com");
+        return userRepository.save(user);
+    }
+
+    private Portfolio createPortfolio(User user, int assetCount) {
+        Portfolio portfolio = new Portfolio();
+        portfolio.setName("Portfolio");
+        portfolio.setUser(user);
+        for (int i = 0; i < assetCount; i++) {
+            PortfolioAsset asset = new PortfolioAsset();
+            asset.setPortfolio(portfolio);
+            asset.setTicker(TICKERS[i]);
+            asset.setQuantityMicros(FixedPoint.toMicros(1.0 + i));
+            asset.setCurrentPriceMicros(FixedPoint.toMicros(100.0));
+            portfolio.getAssets().add(asset);
+        }
+        return portfolioRepository.save(portfolio);
+    }
+}
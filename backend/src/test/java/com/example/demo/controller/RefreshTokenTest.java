@@ -0,0 +1,123 @@
+package com.example.demo.controller;
+
+import com.example.demo.repo.RevokedTokenRepository;
+import com.example.demo.services.TokenRevocationList;
+import com.example.demo.util.JwtUtil;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RefreshTokenTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void refreshRotatesAndReplayRevokesTheSession() throws Exception {
+        String first = register();
+        String firstRefresh = JsonPath.read(first, "$.refreshToken");
+
+        String second = refresh(firstRefresh, status().isOk());
+        String secondRefresh = JsonPath.read(second, "$.refreshToken");
+        assertNotEquals(firstRefresh, secondRefresh);
+        getPortfolios(JsonPath.read(second, "$.token"), status().isOk());
+
+        // Replaying a used token ends the session: its successor stops working too
+        refresh(firstRefresh, status().isUnauthorized());
+        refresh(secondRefresh, status().isUnauthorized());
+    }
+
+    @Test
+    void logoutRevokesTheAccessTokenAcrossRestarts() throws Exception {
+        String body = register();
+        String token = JsonPath.read(body, "$.token");
+        String refreshToken = JsonPath.read(body, "$.refreshToken");
+        getPortfolios(token, status().isOk());
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\": \"" + refreshToken + "\"}"))
+                .andExpect(status().isNoContent());
+
+        // Still signature-valid and cached as verified, but revoked
+        getPortfolios(token, status().isUnauthorized());
+        mockMvc.perform(get("/api/auth/verify").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+        refresh(refreshToken, status().isUnauthorized());
+
+        // A fresh instance rebuilds the revocations from the table
+        TokenRevocationList restarted = new TokenRevocationList(revokedTokenRepository, transactionManager, 100, 0.01);
+        restarted.load();
+        assertTrue(restarted.isRevoked(jwtUtil.verify(token).orElseThrow().tokenId()));
+    }
+
+    @Test
+    void revokingAnAlreadyRecordedTokenDoesNotFailTheCallersTransaction() throws Exception {
+        String token = JsonPath.read(register(), "$.token");
+        JwtUtil.VerifiedToken verified = jwtUtil.verify(token).orElseThrow();
+        mockMvc.perform(post("/api/auth/logout").header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        // Another instance that has not synced yet records the same revocation
+        TokenRevocationList other = new TokenRevocationList(revokedTokenRepository, transactionManager, 100, 0.01);
+        long before = revokedTokenRepository.count();
+        Boolean committed = new TransactionTemplate(transactionManager).execute(status -> {
+            other.revoke(verified.tokenId(), verified.expiresAt());
+            return !status.isRollbackOnly();
+        });
+        assertTrue(committed);
+        assertTrue(other.isRevoked(verified.tokenId()));
+        assertEquals(before, revokedTokenRepository.count());
+    }
+
+    private String register() throws Exception {
+        String username = "session-" + UUID.randomUUID().toString().substring(0, 8);
+        return mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\": \"" + username + "\", \"password\": \"password\", \"email\": \""
+                                + username + "@example.com\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private String refresh(String refreshToken, ResultMatcher expected) throws Exception {
+        return mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\": \"" + refreshToken + "\"}"))
+                .andExpect(expected)
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private void getPortfolios(String token, ResultMatcher expected) throws Exception {
+        mockMvc.perform(get("/api/portfolios").header("Authorization", "Bearer " + token))
+                .andExpect(expected);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.services;
+
+import com.example.demo.exception.LoginThrottledException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+
+    @Test
+    void fullQueueRejectsInsteadOfWaiting() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slowEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hashed";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return false;
+            }
+        };
+        // One hashing thread and one queue slot
+        PasswordHasher hasher = new PasswordHasher(slowEncoder, 4, 1, 1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> running = callers.submit(() -> hasher.encode("first"));
+            Future<String> queued = callers.submit(() -> hasher.encode("second"));
+            while (hasher.queueDepth() < 1) {
+                Thread.sleep(5);
+            }
+
+            assertThrows(LoginThrottledException.class, () -> hasher.encode("third"));
+
+            release.countDown();
+            assertEquals("hashed", running.get());
+            assertEquals("hashed", queued.get());
+        } finally {
+            callers.shutdownNow();
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    void hashesWithAnotherCostNeedRehash() {
+        PasswordHasher hasher = new PasswordHasher(new BCryptPasswordEncoder(5), 5, 1, 4);
+        try {
+            String current = hasher.encode("password");
+            assertTrue(hasher.matches("password", current));
+            assertFalse(hasher.needsRehash(current));
+            assertTrue(hasher.needsRehash(new BCryptPasswordEncoder(4).encode("password")));
+            assertTrue(hasher.needsRehash(new BCryptPasswordEncoder(6).encode("password")));
+        } finally {
+            hasher.shutdown();
+        }
+    }
+}
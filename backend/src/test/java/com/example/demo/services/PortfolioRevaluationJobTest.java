@@ -0,0 +1,144 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.RevaluationReport;
+import com.example.demo.entity.Portfolio;
+import com.example.demo.entity.PortfolioAsset;
+import com.example.demo.entity.PortfolioSnapshot;
+import com.example.demo.entity.RevaluationRun;
+import com.example.demo.entity.User;
+import com.example.demo.repo.PortfolioAssetRepository;
+import com.example.demo.repo.PortfolioRepository;
+import com.example.demo.repo.PortfolioSnapshotRepository;
+import com.example.demo.repo.RevaluationRunRepository;
+import com.example.demo.repo.UserRepository;
+import com.example.demo.util.FixedPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class PortfolioRevaluationJobTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Autowired
+    private PortfolioAssetRepository assetRepository;
+
+    @Autowired
+    private PortfolioSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private RevaluationRunRepository runRepository;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private PortfolioRevaluationJob job;
+    private Portfolio mixed;
+    private Portfolio empty;
+    private Portfolio single;
+
+    @BeforeEach
+    void setUp() {
+        // Tiny chunks and several partitions so boundaries and checkpoints are exercised
+        job = new PortfolioRevaluationJob(portfolioRepository, assetRepository, snapshotRepository, runRepository,
+                stockService, transactionManager, 2, 3);
+
+        User user = new User();
+        user.setUsername("reval-" + UUID.randomUUID().toString().substring(0, 8));
+        user.setPassword("password");
+        user.setEmail(user.getUsername() + "@example.com");
+        userRepository.save(user);
+
+        mixed = createPortfolio(user);
+        addAsset(mixed, "AAPL", 2);
+        addAsset(mixed, "MSFT", 1);
+        empty = createPortfolio(user);
+        single = createPortfolio(user);
+        addAsset(single, "AAPL", 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        job.shutdown();
+    }
+
+    @Test
+    void everyPortfolioGetsOneSnapshotAtTonightsPrices() {
+        LocalDate date = LocalDate.of(2001, 1, 1);
+
+        RevaluationReport report = job.revalue(date);
+
+        assertFalse(report.resumed());
+        assertTrue(report.portfolios() >= 3);
+        assertSnapshot(mixed, date, 2 * 150.25 + 300.75, 2);
+        assertSnapshot(empty, date, 0.0, 0);
+        assertSnapshot(single, date, 150.25, 1);
+
+        // A completed date is not revalued again
+        assertEquals(0, job.revalue(date).portfolios());
+        assertEquals(1, snapshots(mixed, date).size());
+    }
+
+    @Test
+    void restartResumesAfterTheCheckpoint() {
+        LocalDate date = LocalDate.of(2001, 1, 2);
+        RevaluationRun interrupted = new RevaluationRun();
+        interrupted.setSnapshotDate(date);
+        interrupted.setLastPortfolioId(mixed.getId());
+        runRepository.save(interrupted);
+
+        RevaluationReport report = job.revalue(date);
+
+        assertTrue(report.resumed());
+        assertTrue(snapshots(mixed, date).isEmpty());
+        assertSnapshot(empty, date, 0.0, 0);
+        assertSnapshot(single, date, 150.25, 1);
+        assertTrue(runRepository.findById(date).orElseThrow().isCompleted());
+    }
+
+    private void assertSnapshot(Portfolio portfolio, LocalDate date, double value, int assets) {
+        List<PortfolioSnapshot> snapshots = snapshots(portfolio, date);
+        assertEquals(1, snapshots.size());
+        assertEquals(FixedPoint.toMicros(value), snapshots.get(0).getTotalValueMicros());
+        assertEquals(assets, snapshots.get(0).getAssetCount());
+    }
+
+    private List<PortfolioSnapshot> snapshots(Portfolio portfolio, LocalDate date) {
+        return snapshotRepository.findByPortfolioIdAndSnapshotDateBetweenOrderBySnapshotDateAsc(
+                portfolio.getId(), date, date);
+    }
+
+    private Portfolio createPortfolio(User user) {
+        Portfolio portfolio = new Portfolio();
+        portfolio.setName("Revaluation");
+        portfolio.setUser(user);
+        return portfolioRepository.save(portfolio);
+    }
+
+    private void addAsset(Portfolio portfolio, String ticker, double quantity) {
+        PortfolioAsset asset = new PortfolioAsset();
+        asset.setPortfolio(portfolio);
+        asset.setTicker(ticker);
+        asset.setQuantityMicros(FixedPoint.toMicros(quantity));
+        asset.setCurrentPriceMicros(FixedPoint.toMicros(1.0));
+        assetRepository.save(asset);
+    }
+}
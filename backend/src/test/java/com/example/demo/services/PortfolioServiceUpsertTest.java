@@ -0,0 +1,84 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.AssetRow;
+import com.example.demo.entity.Portfolio;
+import com.example.demo.entity.User;
+import com.example.demo.repo.PortfolioAssetRepository;
+import com.example.demo.repo.PortfolioRepository;
+import com.example.demo.repo.UserRepository;
+import com.example.demo.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class PortfolioServiceUpsertTest {
+    private static final int CALLERS = 20;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Autowired
+    private PortfolioAssetRepository assetRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PortfolioValuations valuations;
+
+    @Test
+    void concurrentAddsOfOneTickerMergeIntoOneHolding() throws Exception {
+        User user = new User();
+        user.setUsername("upsert-" + UUID.randomUUID().toString().substring(0, 8));
+        user.setPassword("password");
+        user.setEmail(user.getUsername() + "@example.com");
+        user = userRepository.save(user);
+        Portfolio portfolio = new Portfolio();
+        portfolio.setName("Upsert");
+        portfolio.setUser(user);
+        portfolio = portfolioRepository.save(portfolio);
+
+        Long portfolioId = portfolio.getId();
+        Long userId = user.getId();
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                // Mixed case and padding must all land on the same normalised row
+                String ticker = i % 2 == 0 ? "aapl" : " AAPL ";
+                futures.add(callers.submit(() -> {
+                    start.await();
+                    portfolioService.addAsset(portfolioId, ticker, 1.0, userId);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        List<AssetRow> rows = assetRepository.findRowsByPortfolioIdIn(List.of(portfolioId));
+        assertEquals(1, rows.size());
+        assertEquals("AAPL", rows.get(0).ticker());
+        assertEquals(CALLERS * FixedPoint.SCALE, rows.get(0).quantityMicros());
+        assertEquals(1, valuations.get(portfolioId).assetCount());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.services;
+
+import com.example.demo.event.HoldingChangedEvent;
+import com.example.demo.event.HoldingChangedEvent.Type;
+import com.example.demo.repo.PortfolioAssetRepository;
+import com.example.demo.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class PortfolioValuationsTest {
+    private final QuoteCache quoteCache = new QuoteCache(100, 60_000, 900_000);
+    private final PortfolioValuations valuations = new PortfolioValuations(mock(PortfolioAssetRepository.class), quoteCache);
+
+    @Test
+    void holdingChangesApplyQuantityDeltas() {
+        valuations.onHoldingChanged(event(1L, "AAPL", Type.OPENED, 10, 100.0));
+        valuations.onHoldingChanged(event(1L, "MSFT", Type.OPENED, 2, 300.0));
+        valuations.onHoldingChanged(event(1L, "AAPL", Type.UPDATED, 5, 110.0));
+
+        // The update re-stamps the whole AAPL holding at the new price
+        assertEquals(15 * 110.0 + 2 * 300.0, valuations.get(1L).totalValue(), 1e-9);
+        assertEquals(2, valuations.get(1L).assetCount());
+
+        valuations.onHoldingChanged(event(1L, "MSFT", Type.CLOSED, -2, 300.0));
+        assertEquals(15 * 110.0, valuations.get(1L).totalValue(), 1e-9);
+        assertEquals(1, valuations.get(1L).assetCount());
+    }
+
+    @Test
+    void priceTicksRepriceOnlyPortfoliosHoldingTheTicker() {
+        valuations.onHoldingChanged(event(1L, "AAPL", Type.OPENED, 10, 100.0));
+        valuations.onHoldingChanged(event(2L, "AAPL", Type.OPENED, 1, 100.0));
+        valuations.onHoldingChanged(event(3L, "MSFT", Type.OPENED, 4, 300.0));
+
+        quoteCache.put("AAPL", 120.0);
+
+        assertEquals(1200.0, valuations.get(1L).totalValue(), 1e-9);
+        assertEquals(120.0, valuations.get(2L).totalValue(), 1e-9);
+        assertEquals(1200.0, valuations.get(3L).totalValue(), 1e-9);
+    }
+
+    @Test
+    void openingUsesTheLatestCachedPrice() {
+        quoteCache.put("TSLA", 250.0);
+        valuations.onHoldingChanged(event(1L, "tsla", Type.OPENED, 2, 240.0));
+
+        assertEquals(500.0, valuations.get(1L).totalValue(), 1e-9);
+        assertEquals(0.0, valuations.get(99L).totalValue(), 1e-9);
+    }
+
+    @Test
+    void totalsStayExactAcrossManySmallChanges() {
+        for (int i = 0; i < 1000; i++) {
+            valuations.onHoldingChanged(event(7L, "T" + i, Type.OPENED, 0.1, 0.1));
+        }
+        // 1000 x 0.01: a double accumulator would drift off 10.0 here
+        assertEquals(10.0, valuations.get(7L).totalValue(), 0.0);
+
+        for (int i = 0; i < 1000; i++) {
+            valuations.onHoldingChanged(event(7L, "T" + i, Type.CLOSED, -0.1, 0.1));
+        }
+        assertEquals(0.0, valuations.get(7L).totalValue(), 0.0);
+    }
+
+    private static HoldingChangedEvent event(Long portfolioId, String ticker, Type type, double quantityDelta,
+            double price) {
+        return new HoldingChangedEvent(portfolioId, ticker, type, FixedPoint.toMicros(quantityDelta),
+                FixedPoint.toMicros(price));
+    }
+}
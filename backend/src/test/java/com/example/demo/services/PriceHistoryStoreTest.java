@@ -0,0 +1,110 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.PriceHistoryResponse;
+import com.example.demo.dto.PriceResolution;
+import com.example.demo.dto.ValueHistoryResponse;
+import com.example.demo.entity.PriceCandle;
+import com.example.demo.repo.PriceCandleRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PriceHistoryStoreTest {
+    private static final long HOUR = 3_600_000;
+    private static final long DAY = 86_400_000;
+
+    private final PriceCandleRepository repository = mock(PriceCandleRepository.class);
+    private final PriceHistoryStore store = new PriceHistoryStore(new QuoteCache(100, 60_000, 900_000), repository,
+            DAY, 7 * DAY, 365 * DAY, 3650 * DAY, 2000);
+
+    // Whole hours, recent enough to sit inside every tier's retention
+    private final long base = (System.currentTimeMillis() - 2 * DAY) / HOUR * HOUR;
+
+    @Test
+    void ticksRollUpIntoHourlyCandles() {
+        store.record("AAPL", 100.0, base + 1_000);
+        store.record("AAPL", 105.5, base + 60_000);
+        store.record("AAPL", 98.25, base + 120_000);
+        store.record("AAPL", 101.0, base + HOUR - 1);
+        store.record("AAPL", 110.0, base + HOUR + 5);
+
+        PriceHistoryResponse history = store.query("AAPL", base, base + 2 * HOUR, PriceResolution.HOUR);
+
+        assertArrayEquals(new long[] { base, base + HOUR }, history.getTimestamps());
+        assertArrayEquals(new double[] { 100.0, 110.0 }, history.getOpen(), 1e-9);
+        assertArrayEquals(new double[] { 105.5, 110.0 }, history.getHigh(), 1e-9);
+        assertArrayEquals(new double[] { 98.25, 110.0 }, history.getLow(), 1e-9);
+        assertArrayEquals(new double[] { 101.0, 110.0 }, history.getClose(), 1e-9);
+
+        // Raw ticks are returned as recorded, bounded by the range
+        assertEquals(4, store.query("AAPL", base, base + HOUR, PriceResolution.RAW).getTimestamps().length);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onlyClosedCandlesArePersisted() {
+        store.record("MSFT", 300.0, base);
+        store.record("MSFT", 310.0, base + HOUR);
+        store.flush();
+
+        ArgumentCaptor<List<PriceCandle>> saved = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(saved.capture());
+        List<PriceCandle> candles = new ArrayList<>(saved.getValue());
+        assertEquals(1, candles.size());
+        assertEquals(PriceResolution.HOUR, candles.get(0).getResolution());
+        assertEquals(base, candles.get(0).getBucketStart());
+        assertEquals(300_000_000L, candles.get(0).getCloseMicros());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedFlushIsRetried() {
+        when(repository.saveAll(anyList())).thenThrow(new RuntimeException("database unavailable"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        store.record("SPY", 450.0, base);
+        store.record("SPY", 451.0, base + HOUR);
+
+        store.flush();
+        store.flush();
+
+        ArgumentCaptor<List<PriceCandle>> saved = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(2)).saveAll(saved.capture());
+        PriceCandle retried = saved.getAllValues().get(1).get(0);
+        assertEquals(base, retried.getBucketStart());
+        assertEquals(450_000_000L, retried.getCloseMicros());
+    }
+
+    @Test
+    void automaticResolutionStaysWithinMaxPoints() {
+        store.record("SPY", 450.0, base);
+
+        long now = System.currentTimeMillis();
+        assertEquals(PriceResolution.MINUTE, store.query("SPY", now - HOUR, now, null).getResolution());
+        assertEquals(PriceResolution.HOUR, store.query("SPY", now - 30 * DAY, now, null).getResolution());
+        assertEquals(PriceResolution.DAY, store.query("SPY", now - 400 * DAY, now, null).getResolution());
+    }
+
+    @Test
+    void portfolioValueCarriesLastCloseForward() {
+        store.record("AAPL", 100.0, base);
+        store.record("AAPL", 120.0, base + 2 * HOUR);
+        store.record("MSFT", 300.0, base + HOUR);
+
+        ValueHistoryResponse history = store.valueHistory(Map.of("AAPL", 10.0, "MSFT", 2.0),
+                base, base + 3 * HOUR, PriceResolution.HOUR);
+
+        assertArrayEquals(new long[] { base, base + HOUR, base + 2 * HOUR }, history.getTimestamps());
+        assertArrayEquals(new double[] { 1000.0, 1600.0, 1800.0 }, history.getValues(), 1e-9);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.services;
+
+import com.example.demo.util.TickFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayQuoteProviderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void fullSpeedReplayPlaysEveryTickOnceInOrder() throws Exception {
+        Path path = writeTicks();
+        ReplayQuoteProvider provider = new ReplayQuoteProvider(path.toString(), 0, false);
+        try {
+            awaitTicks(provider, 4);
+            // Let a late extra tick show up if the replay wrongly looped
+            TimeUnit.MILLISECONDS.sleep(50);
+            assertEquals(4, provider.ticksReplayed());
+            assertEquals(151.0, provider.fetchPrice("AAPL"));
+            assertEquals(300.75, provider.fetchPrice("MSFT"));
+            assertThrows(RuntimeException.class, () -> provider.fetchPrice("VTI"));
+        } finally {
+            provider.shutdown();
+        }
+    }
+
+    @Test
+    void loopingReplayStartsOverAndNotifiesListeners() throws Exception {
+        Path path = writeTicks();
+        ReplayQuoteProvider provider = new ReplayQuoteProvider(path.toString(), 0, true);
+        List<String> ticks = new CopyOnWriteArrayList<>();
+        provider.subscribe((ticker, price, timestamp) -> ticks.add(ticker + "=" + price));
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (ticks.size() < 12) {
+                assertTrue(System.nanoTime() < deadline, "heard only " + ticks.size());
+                TimeUnit.MILLISECONDS.sleep(1);
+            }
+        } finally {
+            provider.shutdown();
+        }
+        // Subscribed after the thread started, so the first few ticks may be missed
+        int start = ticks.indexOf("AAPL=150.25");
+        assertTrue(start >= 0 && start < 4, ticks.toString());
+        assertEquals(List.of("AAPL=150.25", "MSFT=300.75", "AAPL=150.5", "AAPL=151.0",
+                        "AAPL=150.25", "MSFT=300.75", "AAPL=150.5", "AAPL=151.0"),
+                ticks.subList(start, start + 8));
+    }
+
+    private Path writeTicks() throws Exception {
+        Path path = dir.resolve("ticks.bin");
+        try (TickFile.Writer writer = new TickFile.Writer(path, 0, List.of("AAPL", "MSFT", "VTI"))) {
+            writer.write(0, 0, 150_250_000L);
+            writer.write(10, 1, 300_750_000L);
+            writer.write(20, 0, 150_500_000L);
+            writer.write(30, 0, 151_000_000L);
+        }
+        return path;
+    }
+
+    private static void awaitTicks(ReplayQuoteProvider provider, long ticks) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (provider.ticksReplayed() < ticks) {
+            assertTrue(System.nanoTime() < deadline, "replayed only " + provider.ticksReplayed());
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.demo.services;
+
+import com.example.demo.entity.CompanyProfile;
+import com.example.demo.repo.CompanyProfileRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class StockServiceConcurrencyTest {
+    private static final int CALLERS = 50;
+
+    private HttpServer server;
+    private final AtomicInteger upstreamHits = new AtomicInteger();
+    private volatile String responseBody;
+
+    private StockService stockService;
+    private CompanyProfileRepository profileRepository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/query", exchange -> {
+            upstreamHits.incrementAndGet();
+            try {
+                // Hold the response long enough for every caller to pile up behind it
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = responseBody.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        QuoteProvider provider = new AlphaVantageQuoteProvider(new MarketDataHttpClient(2000, 5000, 8),
+                "test-key", "http://127.0.0.1:" + server.getAddress().getPort());
+        UpstreamGuard guard = new UpstreamGuard(provider, new UpstreamRequestScheduler(100, 1000, 2000, 2000),
+                20, 10, 0.5, 0.8, 3000, 30_000, 3, false, 100);
+        profileRepository = mock(CompanyProfileRepository.class);
+        stockService = new StockService(provider, new QuoteCache(100, 60_000, 900_000), guard,
+                new HotTickerSet(100, 0.5, 1.0),
+                new CompanyMetadataStore(profileRepository, provider, guard, 604_800_000, 3_600_000));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void concurrentCallersShareOneUpstreamRequest() throws Exception {
+        responseBody = "{\"Global Quote\": {\"01. symbol\": \"AAPL\", \"05. price\": \"187.4400\"}}";
+
+        List<Double> prices = callConcurrently("AAPL");
+
+        assertEquals(1, upstreamHits.get());
+        prices.forEach(price -> assertEquals(187.44, price, 1e-9));
+    }
+
+    @Test
+    void upstreamFailureFansOutWithoutRetries() throws Exception {
+        responseBody = "{\"Error Message\": \"Invalid API call\"}";
+
+        List<Double> prices = callConcurrently("SPY");
+
+        // Every waiter sees the shared failure and falls back to the mock price
+        assertEquals(1, upstreamHits.get());
+        prices.forEach(price -> assertEquals(450.25, price, 1e-9));
+    }
+
+    @Test
+    void stockInfoIsServedFromMetadataStoreAfterFirstFetch() throws Exception {
+        // One body serves both GLOBAL_QUOTE and OVERVIEW; each parser skips the other's fields
+        responseBody = "{\"Global Quote\": {\"01. symbol\": \"AAPL\", \"05. price\": \"187.4400\"},"
+                + " \"Name\": \"Apple Inc\", \"Sector\": \"TECHNOLOGY\", \"Industry\": \"ELECTRONIC COMPUTERS\"}";
+
+        Map<String, Object> first = stockService.getStockInfoAsync("AAPL").get();
+        assertEquals("Apple Inc", first.get("name"));
+        assertEquals(2, upstreamHits.get());
+
+        // Cached price and stored profile: no further upstream calls, no OVERVIEW on /price
+        for (int i = 0; i < 10; i++) {
+            Map<String, Object> info = stockService.getStockInfoAsync("AAPL").get();
+            assertEquals("TECHNOLOGY", info.get("sector"));
+            assertFalse(stockService.getStockPriceAsync("AAPL").get().containsKey("name"));
+        }
+        assertEquals(2, upstreamHits.get());
+        verify(profileRepository, times(1)).save(any(CompanyProfile.class));
+    }
+
+    private List<Double> callConcurrently(String ticker) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Double>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(callers.submit(() -> {
+                    start.await();
+                    return stockService.getCurrentPrice(ticker);
+                }));
+            }
+            start.countDown();
+
+            List<Double> prices = new ArrayList<>();
+            for (Future<Double> future : futures) {
+                prices.add(future.get());
+            }
+            return prices;
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.Quote;
+import com.example.demo.repo.CompanyProfileRepository;
+import com.example.demo.util.CircuitBreaker;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class StockServiceResilienceTest {
+    private static final String QUOTE = "{\"Global Quote\": {\"01. symbol\": \"AAPL\", \"05. price\": \"187.4400\"}}";
+
+    private HttpServer server;
+    private final AtomicInteger upstreamHits = new AtomicInteger();
+
+    // Fault injection: status to answer with, and whether the next request should stall
+    private volatile int status = 200;
+    private final AtomicBoolean stallNextRequest = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/query", exchange -> {
+            upstreamHits.incrementAndGet();
+            if (stallNextRequest.compareAndSet(true, false)) {
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            // Alpha Vantage answers an unknown symbol with an empty quote
+            String quote = exchange.getRequestURI().getQuery().contains("symbol=NOPE") ? "{\"Global Quote\": {}}" : QUOTE;
+            byte[] body = (status == 200 ? quote : "upstream unavailable").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void openBreakerServesLastKnownPriceWithoutCallingUpstream() throws InterruptedException {
+        AlphaVantageQuoteProvider provider = provider();
+        UpstreamGuard guard = new UpstreamGuard(provider, new UpstreamRequestScheduler(100, 1000, 2000, 2000),
+                4, 2, 0.5, 1.0, 3000, 60_000, 1, false, 100);
+        // 1 ms TTL: every lookup goes upstream, but the last price is still remembered
+        StockService stockService = new StockService(provider, new QuoteCache(100, 1, 1), guard,
+                new HotTickerSet(100, 0.5, 1.0), metadataStore(provider, guard));
+
+        assertEquals(Quote.Status.LIVE, stockService.getQuote("AAPL").status());
+
+        status = 500;
+        for (int i = 0; i < 2; i++) {
+            Thread.sleep(2); // let the cached price age past the TTL
+            Quote quote = stockService.getQuote("AAPL");
+            assertEquals(Quote.Status.DEGRADED, quote.status());
+            assertEquals(187.44, quote.price(), 1e-9);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, guard.breakerState());
+
+        int hitsWhenOpened = upstreamHits.get();
+        Thread.sleep(2);
+        Quote quote = stockService.getQuote("AAPL");
+        assertEquals(Quote.Status.DEGRADED, quote.status());
+        assertEquals(187.44, quote.price(), 1e-9);
+        assertEquals(hitsWhenOpened, upstreamHits.get());
+    }
+
+    @Test
+    void unknownTickersDoNotOpenTheBreaker() {
+        AlphaVantageQuoteProvider provider = provider();
+        UpstreamGuard guard = new UpstreamGuard(provider, new UpstreamRequestScheduler(100, 1000, 2000, 2000),
+                4, 2, 0.5, 1.0, 3000, 60_000, 1, false, 100);
+        StockService stockService = new StockService(provider, new QuoteCache(100, 60_000, 900_000), guard,
+                new HotTickerSet(100, 0.5, 1.0), metadataStore(provider, guard));
+
+        for (int i = 0; i < 8; i++) {
+            assertNotEquals(Quote.Status.LIVE, stockService.getQuote("NOPE" + i).status());
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, guard.breakerState());
+        assertEquals(Quote.Status.LIVE, stockService.getQuote("AAPL").status());
+    }
+
+    @Test
+    void hedgedRequestWinsWhenPrimaryStalls() {
+        AlphaVantageQuoteProvider provider = provider();
+        UpstreamGuard guard = new UpstreamGuard(provider, new UpstreamRequestScheduler(100, 1000, 2000, 2000),
+                20, 10, 0.5, 1.0, 5000, 30_000, 3, true, 50);
+        StockService stockService = new StockService(provider, new QuoteCache(100, 60_000, 900_000), guard,
+                new HotTickerSet(100, 0.5, 1.0), metadataStore(provider, guard));
+
+        // Warm up the client so the stalled request below is really the primary
+        assertEquals(Quote.Status.LIVE, stockService.getQuote("MSFT").status());
+        long firedBefore = guard.hedgesFired();
+        long wonBefore = guard.hedgesWon();
+        stallNextRequest.set(true);
+
+        long start = System.nanoTime();
+        Quote quote = stockService.getQuote("AAPL");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(Quote.Status.LIVE, quote.status());
+        assertEquals(187.44, quote.price(), 1e-9);
+        assertEquals(firedBefore + 1, guard.hedgesFired());
+        assertEquals(wonBefore + 1, guard.hedgesWon());
+        assertTrue(elapsedMillis < 1500, "hedge should answer before the stalled primary, took " + elapsedMillis);
+    }
+
+    private static CompanyMetadataStore metadataStore(QuoteProvider provider, UpstreamGuard guard) {
+        return new CompanyMetadataStore(mock(CompanyProfileRepository.class), provider, guard, 604_800_000, 3_600_000);
+    }
+
+    private AlphaVantageQuoteProvider provider() {
+        return new AlphaVantageQuoteProvider(new MarketDataHttpClient(2000, 5000, 8),
+                "test-key", "http://127.0.0.1:" + server.getAddress().getPort());
+    }
+}
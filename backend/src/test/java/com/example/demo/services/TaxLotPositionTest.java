@@ -0,0 +1,66 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.CostBasisMethod;
+import com.example.demo.dto.TaxLot;
+import com.example.demo.dto.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TaxLotPositionTest {
+
+    @Test
+    void sellsMatchLotsByMethod() {
+        assertEquals(10 * (130.0 - 100.0), buyTwiceSellTen(CostBasisMethod.FIFO).realizedPnl(), 1e-9);
+        assertEquals(10 * (130.0 - 120.0), buyTwiceSellTen(CostBasisMethod.LIFO).realizedPnl(), 1e-9);
+        assertEquals(10 * (130.0 - 110.0), buyTwiceSellTen(CostBasisMethod.AVERAGE).realizedPnl(), 1e-9);
+
+        TaxLotPosition fifo = buyTwiceSellTen(CostBasisMethod.FIFO);
+        assertEquals(List.of(new TaxLot(10, 120.0)), fifo.lots());
+        assertEquals(1200.0, fifo.costBasis(), 1e-9);
+    }
+
+    @Test
+    void splitsRescaleLotsAndDividendsAccumulate() {
+        TaxLotPosition position = new TaxLotPosition(CostBasisMethod.FIFO);
+        position.apply(1, TransactionType.BUY, 10, 100.0);
+        position.apply(2, TransactionType.SPLIT, 4, 0.0);
+        position.apply(3, TransactionType.DIVIDEND, 40, 0.25);
+
+        assertEquals(40.0, position.quantity(), 1e-9);
+        assertEquals(1000.0, position.costBasis(), 1e-9);
+        assertEquals(10.0, position.dividends(), 1e-9);
+
+        // Selling beyond the open lots realises only the matched part
+        position.apply(4, TransactionType.SELL, 50, 30.0);
+        assertEquals(0.0, position.quantity(), 1e-9);
+        assertEquals(40 * (30.0 - 25.0), position.realizedPnl(), 1e-9);
+    }
+
+    @Test
+    void snapshotPlusTailMatchesFullReplay() {
+        TaxLotPosition full = new TaxLotPosition(CostBasisMethod.LIFO);
+        full.apply(1, TransactionType.BUY, 3, 10.1);
+        full.apply(2, TransactionType.BUY, 7, 12.7);
+        full.apply(3, TransactionType.SELL, 2, 15.0);
+
+        TaxLotPosition restored = TaxLotPosition.restore(CostBasisMethod.LIFO, full.lastTransactionId(),
+                full.realizedPnl(), full.dividends(), full.encodeLots());
+        full.apply(4, TransactionType.SELL, 6, 9.5);
+        restored.apply(4, TransactionType.SELL, 6, 9.5);
+
+        assertEquals(full.lots(), restored.lots());
+        assertEquals(full.realizedPnl(), restored.realizedPnl(), 0.0);
+        assertEquals(1, restored.appliedSinceSnapshot());
+    }
+
+    private static TaxLotPosition buyTwiceSellTen(CostBasisMethod method) {
+        TaxLotPosition position = new TaxLotPosition(method);
+        position.apply(1, TransactionType.BUY, 10, 100.0);
+        position.apply(2, TransactionType.BUY, 10, 120.0);
+        position.apply(3, TransactionType.SELL, 10, 130.0);
+        return position;
+    }
+}
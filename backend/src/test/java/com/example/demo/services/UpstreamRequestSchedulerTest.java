@@ -0,0 +1,129 @@
+package com.example.demo.services;
+
+import com.example.demo.exception.UpstreamThrottledException;
+import com.example.demo.services.UpstreamRequestScheduler.Priority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Budgets and deadlines run on a fake clock that only moves when a test
+ * advances it, so whether a call may go ahead never depends on timing.
+ * The dispatcher still parks in real time, so results are awaited.
+ */
+class UpstreamRequestSchedulerTest {
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong();
+    private UpstreamRequestScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void interactiveCallsGoAheadOfQueuedBackgroundCalls() throws Exception {
+        scheduler = new UpstreamRequestScheduler(1, 100, 600_000, 600_000, clock::get);
+        List<String> order = new CopyOnWriteArrayList<>();
+        assertEquals("first", scheduler.execute(Priority.INTERACTIVE, () -> "first"));
+
+        CompletableFuture<Object> background = submit(Priority.BACKGROUND, order, "background");
+        await(() -> scheduler.queueDepth() == 1);
+        CompletableFuture<Object> interactive = submit(Priority.INTERACTIVE, order, "interactive");
+        await(() -> scheduler.queueDepth() == 2);
+
+        clock.addAndGet(MINUTE);
+        interactive.get(5, TimeUnit.SECONDS);
+        assertFalse(background.isDone());
+
+        clock.addAndGet(MINUTE);
+        background.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("interactive", "background"), order);
+    }
+
+    @Test
+    void perMinuteBudgetRejectsShortDeadlinesAndQueuesLongOnes() throws Exception {
+        // A fresh token every 30 seconds; interactive calls wait at most 2
+        scheduler = new UpstreamRequestScheduler(2, 100, 2_000, 60_000, clock::get);
+        scheduler.execute(Priority.INTERACTIVE, () -> 1);
+        scheduler.execute(Priority.INTERACTIVE, () -> 2);
+
+        assertThrows(UpstreamThrottledException.class, () -> scheduler.execute(Priority.INTERACTIVE, () -> 3));
+
+        CompletableFuture<Object> background = submit(Priority.BACKGROUND, new CopyOnWriteArrayList<>(), "later");
+        await(() -> scheduler.queueDepth() == 1);
+        assertFalse(background.isDone());
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertEquals("later", background.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void perDayBudgetRejectsEvenPatientCallsUntilItRefills() throws Exception {
+        scheduler = new UpstreamRequestScheduler(100, 2, 2_000, 60_000, clock::get);
+        scheduler.execute(Priority.BACKGROUND, () -> 1);
+        scheduler.execute(Priority.BACKGROUND, () -> 2);
+
+        // Minute tokens are plentiful, but the next day token is 12 hours out
+        clock.addAndGet(MINUTE);
+        assertThrows(UpstreamThrottledException.class, () -> scheduler.execute(Priority.BACKGROUND, () -> 3));
+        assertThrows(UpstreamThrottledException.class, () -> scheduler.execute(Priority.INTERACTIVE, () -> 3));
+
+        clock.addAndGet(TimeUnit.HOURS.toNanos(12));
+        assertEquals(3, scheduler.execute(Priority.INTERACTIVE, () -> 3));
+    }
+
+    @Test
+    void queuedCallIsRejectedOnceItsDeadlineFallsBeforeTheNextToken() throws Exception {
+        scheduler = new UpstreamRequestScheduler(1, 100, 120_000, 90_000, clock::get);
+        List<String> order = new CopyOnWriteArrayList<>();
+        scheduler.execute(Priority.INTERACTIVE, () -> 1);
+
+        // The next token is due at 60 seconds, inside the background call's 90
+        CompletableFuture<Object> background = submit(Priority.BACKGROUND, order, "background");
+        await(() -> scheduler.queueDepth() == 1);
+        CompletableFuture<Object> interactive = submit(Priority.INTERACTIVE, order, "interactive");
+        await(() -> scheduler.queueDepth() == 2);
+
+        // The interactive call takes that token; the one after comes too late
+        clock.addAndGet(MINUTE);
+        interactive.get(5, TimeUnit.SECONDS);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> background.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(UpstreamThrottledException.class, e.getCause().getCause());
+        assertEquals(List.of("interactive"), order);
+    }
+
+    private CompletableFuture<Object> submit(Priority priority, List<String> order, String label) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return scheduler.execute(priority, () -> {
+                    order.add(label);
+                    return label;
+                });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached");
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+    }
+}
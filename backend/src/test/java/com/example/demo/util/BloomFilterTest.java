@@ -0,0 +1,34 @@
+package com.example.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void neverMissesAKeyAndStaysNearItsFalsePositiveRate() {
+        int keys = 10_000;
+        BloomFilter filter = new BloomFilter(keys, 0.01);
+        String[] inserted = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            inserted[i] = UUID.randomUUID().toString();
+            filter.put(inserted[i]);
+        }
+
+        for (String key : inserted) {
+            assertTrue(filter.mightContain(key), key);
+        }
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        // Sized for 1%; allow generous slack for randomness
+        assertTrue(falsePositives < probes * 0.02, "false positives: " + falsePositives);
+    }
+}
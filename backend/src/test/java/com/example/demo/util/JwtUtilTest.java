@@ -0,0 +1,46 @@
+package com.example.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtUtilTest {
+    private static final String SECRET = "a-string-secret-at-least-256-bits-long";
+
+    @Test
+    void verifiedTokensAreCachedByDigest() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, 2);
+        String alice = jwtUtil.generateToken(1L, "alice", List.of("ROLE_USER"));
+
+        JwtUtil.VerifiedToken first = jwtUtil.verify(alice).orElseThrow();
+        assertEquals("alice", first.username());
+        assertEquals(1L, first.userId());
+        assertEquals(List.of("ROLE_USER"), first.roles());
+        assertEquals(first, jwtUtil.verify(alice).orElseThrow());
+        assertEquals(1, jwtUtil.cachedTokens());
+
+        // Bounded: the least recently used token is evicted, not kept forever
+        jwtUtil.verify(jwtUtil.generateToken(2L, "bob"));
+        jwtUtil.verify(jwtUtil.generateToken(3L, "carol"));
+        assertEquals(2, jwtUtil.cachedTokens());
+    }
+
+    @Test
+    void forgedAndExpiredTokensAreRejectedAndNotCached() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, 10);
+        String token = jwtUtil.generateToken(1L, "alice");
+        String forged = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+        String foreign = new JwtUtil("another-secret-that-is-32-characters", 60_000, 10).generateToken(1L, "alice");
+        String expired = new JwtUtil(SECRET, -1_000, 10).generateToken(1L, "alice");
+
+        assertTrue(jwtUtil.verify(forged).isEmpty());
+        assertTrue(jwtUtil.verify(foreign).isEmpty());
+        assertTrue(jwtUtil.verify(expired).isEmpty());
+        assertTrue(jwtUtil.verify("not-a-jwt").isEmpty());
+        assertEquals(0, jwtUtil.cachedTokens());
+    }
+}
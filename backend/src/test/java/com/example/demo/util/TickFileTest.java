@@ -0,0 +1,50 @@
+package com.example.demo.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TickFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writtenTicksReadBackThroughTheMap() throws Exception {
+        Path path = dir.resolve("ticks.bin");
+        String longest = "X".repeat(127);
+        List<String> symbols = List.of("AAPL", "MSFT", longest);
+        // More records than the writer buffers, so the count is patched after several flushes
+        int records = 10_000;
+        try (TickFile.Writer writer = new TickFile.Writer(path, 1_700_000_000_000L, symbols)) {
+            for (int i = 0; i < records; i++) {
+                writer.write(i * 10, i % symbols.size(), 150_250_000L + i);
+            }
+        }
+
+        try (TickFile file = TickFile.open(path)) {
+            assertEquals(1_700_000_000_000L, file.baseMillis());
+            assertEquals(symbols, file.symbols());
+            assertEquals(records, file.recordCount());
+            for (int i = 0; i < records; i++) {
+                assertEquals(i * 10, file.offsetMillis(i));
+                assertEquals(i % symbols.size(), file.symbolId(i));
+                assertEquals(150_250_000L + i, file.priceMicros(i));
+            }
+        }
+    }
+
+    @Test
+    void symbolsTooLongForTheLengthByteAreRejected() {
+        Path path = dir.resolve("ticks.bin");
+        assertThrows(IllegalArgumentException.class,
+                () -> new TickFile.Writer(path, 0, List.of("X".repeat(128))));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TickFile.Writer(path, 0, List.of("")));
+    }
+}
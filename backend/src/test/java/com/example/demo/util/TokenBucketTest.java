@@ -0,0 +1,48 @@
+package com.example.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    @Test
+    void burstsToCapacityThenRefillsAtTheConfiguredRate() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(5, TimeUnit.MINUTES.toNanos(1), clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire());
+        }
+        assertFalse(bucket.tryAcquire());
+        // One token per 12 seconds
+        assertEquals(TimeUnit.SECONDS.toNanos(12), bucket.nanosUntilAvailable());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        assertFalse(bucket.tryAcquire());
+        assertEquals(TimeUnit.SECONDS.toNanos(6), bucket.nanosUntilAvailable());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        assertEquals(0, bucket.nanosUntilAvailable());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void idleTimeNeverFillsPastCapacity() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(3, TimeUnit.SECONDS.toNanos(1), clock::get);
+
+        clock.addAndGet(TimeUnit.HOURS.toNanos(1));
+        assertEquals(3.0, bucket.available());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryAcquire());
+        }
+        assertFalse(bucket.tryAcquire());
+    }
+}
@@ -27,6 +27,7 @@ export function AuthProvider({ children }) {
         })
         .catch(() => {
           localStorage.removeItem("token");
+          localStorage.removeItem("refreshToken");
           localStorage.removeItem("user");
         })
         .finally(() => {
@@ -40,9 +41,10 @@ export function AuthProvider({ children }) {
   const login = async (username, password) => {
     try {
       const response = await authAPI.login(username, password);
-      const { token, username: userUsername } = response.data;
+      const { token, refreshToken, username: userUsername } = response.data;
 
       localStorage.setItem("token", token);
+      localStorage.setItem("refreshToken", refreshToken);
       localStorage.setItem("user", JSON.stringify({ username: userUsername }));
       setUser({ username: userUsername });
 
@@ -55,9 +57,10 @@ export function AuthProvider({ children }) {
   const register = async (username, password, email) => {
     try {
       const response = await authAPI.register(username, password, email);
-      const { token, username: userUsername } = response.data;
+      const { token, refreshToken, username: userUsername } = response.data;
 
       localStorage.setItem("token", token);
+      localStorage.setItem("refreshToken", refreshToken);
       localStorage.setItem("user", JSON.stringify({ username: userUsername }));
       setUser({ username: userUsername });
 
@@ -68,7 +71,12 @@ export function AuthProvider({ children }) {
   };
 
   const logout = () => {
+    // Best effort: revokes the access token and ends the refresh token session
+    authAPI
+      .logout(localStorage.getItem("token"), localStorage.getItem("refreshToken"))
+      .catch(() => {});
     localStorage.removeItem("token");
+    localStorage.removeItem("refreshToken");
     localStorage.removeItem("user");
     setUser(null);
   };
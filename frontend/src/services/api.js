@@ -27,15 +27,50 @@ api.interceptors.request.use(
   }
 );
 
+// Access tokens are short-lived: on 401, renew once with the refresh token and retry.
+// Concurrent 401s share one refresh call, since each refresh token works only once.
+let refreshing = null;
+
+const clearSession = () => {
+  localStorage.removeItem("token");
+  localStorage.removeItem("refreshToken");
+  localStorage.removeItem("user");
+  window.location.href = "/login";
+};
+
 // Response interceptor to handle errors
 api.interceptors.response.use(
   (response) => response,
-  (error) => {
+  async (error) => {
+    const original = error.config;
+    const refreshToken = localStorage.getItem("refreshToken");
+    if (
+      error.response?.status === 401 &&
+      refreshToken &&
+      !original._retried &&
+      (!original.url?.startsWith("/auth/") || original.url === "/auth/verify")
+    ) {
+      original._retried = true;
+      try {
+        refreshing =
+          refreshing ||
+          axios
+            .post(`${API_BASE_URL}/auth/refresh`, { refreshToken })
+            .finally(() => {
+              refreshing = null;
+            });
+        const { data } = await refreshing;
+        localStorage.setItem("token", data.token);
+        localStorage.setItem("refreshToken", data.refreshToken);
+        return api(original);
+      } catch (refreshError) {
+        clearSession();
+        return Promise.reject(refreshError);
+      }
+    }
     if (error.response?.status === 401) {
-      // Token expired or invalid
-      localStorage.removeItem("token");
-      localStorage.removeItem("user");
-      window.location.href = "/login";
+      // Token expired or invalid and could not be renewed
+      clearSession();
     }
     return Promise.reject(error);
   }
@@ -50,6 +85,14 @@ export const authAPI = {
     api.post("/auth/register", { username, password, email }),
 
   verifyToken: () => api.get("/auth/verify"), // This endpoint would need to be added to backend
+
+  // Token passed explicitly: the caller clears storage before interceptors run
+  logout: (token, refreshToken) =>
+    api.post(
+      "/auth/logout",
+      { refreshToken },
+      { headers: token ? { Authorization: `Bearer ${token}` } : {} }
+    ),
 };
 
 // Portfolio API